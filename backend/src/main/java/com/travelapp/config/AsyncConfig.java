@@ -0,0 +1,173 @@
+package com.travelapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${app.advisory.jobs.workers:2}")
+    private int jobWorkers;
+
+    @Value("${app.advisory.jobs.queue-capacity:100}")
+    private int jobQueueCapacity;
+
+    @Value("${app.advisory.fanout.concurrency:8}")
+    private int fanoutConcurrency;
+
+    @Value("${ai.http.max-connections-per-route:20}")
+    private int llmMaxConnectionsPerRoute;
+
+    @Value("${app.events.queue-capacity:1000}")
+    private int eventQueueCapacity;
+
+    @Value("${app.parser.batch.threads:8}")
+    private int parseBatchThreads;
+
+    @Value("${app.parser.stream.threads:4}")
+    private int streamParseThreads;
+
+    @Value("${app.parser.stream.queue-capacity:4}")
+    private int streamParseQueueCapacity;
+
+    @Value("${app.mail.workers:2}")
+    private int mailWorkers;
+
+    @Value("${app.mvc.async.threads:8}")
+    private int mvcAsyncThreads;
+
+    @Value("${app.mvc.async.queue-capacity:50}")
+    private int mvcAsyncQueueCapacity;
+
+    /**
+     * Runs whole advisory impact jobs off the request thread.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor advisoryJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobWorkers);
+        executor.setMaxPoolSize(jobWorkers);
+        executor.setQueueCapacity(jobQueueCapacity);
+        executor.setThreadNamePrefix("advisory-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs the per-booking pipeline (LLM script, clone save, email) of impact jobs.
+     * Each job additionally caps its own in-flight bookings at the same limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor advisoryFanoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(fanoutConcurrency);
+        executor.setMaxPoolSize(fanoutConcurrency);
+        executor.setThreadNamePrefix("advisory-fanout-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Backs LlmService's async API. Every call goes to the one LLM host, so the
+     * per-route limit (not the total pool size) caps concurrent requests; a thread
+     * beyond that would only wait for a connection.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor llmExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(llmMaxConnectionsPerRoute);
+        executor.setMaxPoolSize(llmMaxConnectionsPerRoute);
+        executor.setThreadNamePrefix("llm-");
+        return executor;
+    }
+
+    /**
+     * Runs NotificationService's queue-draining loops, one thread each; they run
+     * until shutdown, so there is no queue.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mailWorkers);
+        executor.setMaxPoolSize(mailWorkers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("mail-sender-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs async MVC handlers (StreamingResponseBody exports). The beans above
+     * switch off Boot's default applicationTaskExecutor, so WebConfig wires this
+     * one in explicitly.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(mvcAsyncThreads);
+        executor.setMaxPoolSize(mvcAsyncThreads);
+        executor.setQueueCapacity(mvcAsyncQueueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    /**
+     * Sends Server-Sent Events. One thread keeps each stream's events in order.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor workflowEventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(eventQueueCapacity);
+        executor.setThreadNamePrefix("workflow-events-");
+        return executor;
+    }
+
+    /**
+     * Runs the periodic workflow re-validation pass, which may call the LLM for many
+     * workflows; WorkflowEventService never queues a second pass behind a running one.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor revalidationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("workflow-revalidate-");
+        return executor;
+    }
+
+    /**
+     * Runs batch intake parses off the request thread; each batch also caps its
+     * own in-flight items at app.parser.batch.concurrency.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor parseBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parseBatchThreads);
+        executor.setMaxPoolSize(parseBatchThreads);
+        executor.setThreadNamePrefix("parse-batch-");
+        return executor;
+    }
+
+    /**
+     * Runs streaming parses, which a user is watching. Kept apart from batch items
+     * so a large batch cannot hold them up; the short queue rejects quickly when
+     * full, and the client then falls back to a plain parse.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamParseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(streamParseThreads);
+        executor.setMaxPoolSize(streamParseThreads);
+        executor.setQueueCapacity(streamParseQueueCapacity);
+        executor.setThreadNamePrefix("parse-stream-");
+        return executor;
+    }
+}
@@ -0,0 +1,71 @@
+package com.travelapp.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${ai.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${ai.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${ai.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${ai.http.read-timeout:60s}")
+    private Duration readTimeout;
+
+    @Value("${ai.http.pool-acquire-timeout:5s}")
+    private Duration poolAcquireTimeout;
+
+    @Value("${ai.http.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    /**
+     * Pooled, keep-alive HTTP client for the LLM provider. Every phase of a call
+     * is bounded so a hung upstream cannot pin a request thread.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient llmHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient llmHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(llmHttpClient));
+    }
+}
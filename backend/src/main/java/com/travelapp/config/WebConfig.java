@@ -1,8 +1,12 @@
 package com.travelapp.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -12,6 +16,16 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${app.cors.allowed-origins:}")
     private String allowedOrigins;
 
+    @Autowired
+    @Qualifier("mvcAsyncExecutor")
+    private AsyncTaskExecutor mvcAsyncExecutor;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Timeout comes from spring.mvc.async.request-timeout
+        configurer.setTaskExecutor(mvcAsyncExecutor);
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         if (!StringUtils.hasText(allowedOrigins)) {
@@ -20,7 +34,7 @@ public class WebConfig implements WebMvcConfigurer {
 
         String trimmed = allowedOrigins.trim();
         var mapping = registry.addMapping("/api/**")
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*");
 
         if ("*".equals(trimmed)) {
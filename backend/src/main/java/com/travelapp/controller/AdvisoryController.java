@@ -1,10 +1,13 @@
 package com.travelapp.controller;
 
 import com.travelapp.model.Advisory;
+import com.travelapp.model.AdvisoryImpactJob;
 import com.travelapp.repository.AdvisoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -15,22 +18,61 @@ public class AdvisoryController {
     private AdvisoryRepository repository;
 
     @Autowired
-    private com.travelapp.service.AdvisoryImpactService impactService;
+    private com.travelapp.repository.AdvisoryImpactRecordRepository impactRecordRepository;
+
+    @Autowired
+    private com.travelapp.service.AdvisoryJobService jobService;
+
+    @Autowired
+    private com.travelapp.service.ValidationCacheService validationCache;
+
+    @Autowired
+    private com.travelapp.service.AdvisoryRegistry advisoryRegistry;
+
+    @Autowired
+    private com.travelapp.service.AdvisoryVersionService advisoryVersion;
 
     @GetMapping
     public List<Advisory> getAllAdvisories() {
-        return repository.findAll();
+        return advisoryRegistry.getAll();
     }
 
     @PostMapping
-    public Advisory createAdvisory(@RequestBody Advisory advisory) {
-        Advisory saved = repository.save(advisory);
-        impactService.processNewAdvisory(saved);
-        return saved;
+    public ResponseEntity<AdvisoryImpactJob> createAdvisory(@RequestBody Advisory advisory) {
+        Advisory saved = advisoryRegistry.findEquivalent(advisory);
+        if (saved == null) {
+            // The registry only knows this instance's view; the insert decides across instances
+            saved = repository.insertIfAbsent(advisory);
+            if (saved == null) {
+                saved = advisory;
+                advisoryRegistry.register(saved);
+                validationCache.invalidateAll();
+                advisoryVersion.bump();
+            } else {
+                // Created by another instance, which bumps the version; registering now saves waiting for the poll
+                advisoryRegistry.register(saved);
+            }
+        }
+        // Impact fan-out (LLM calls, clones, emails) runs in the background. It is idempotent per
+        // booking, so a duplicate POST joins the run in progress or resumes an interrupted one
+        AdvisoryImpactJob job = jobService.submit(saved);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/advisories/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<AdvisoryImpactJob> getJob(@PathVariable String jobId) {
+        AdvisoryImpactJob job = jobService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{id}")
     public void deleteAdvisory(@PathVariable String id) {
         repository.deleteById(id);
+        impactRecordRepository.deleteByAdvisoryId(id);
+        advisoryRegistry.remove(id);
+        validationCache.invalidateAll();
+        advisoryVersion.bump();
     }
 }
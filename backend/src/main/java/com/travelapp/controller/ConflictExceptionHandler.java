@@ -0,0 +1,23 @@
+package com.travelapp.controller;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Lost write races surface as 409 rather than 500, so clients know to reload and retry.
+ */
+@RestControllerAdvice
+public class ConflictExceptionHandler {
+
+    @ExceptionHandler({ OptimisticLockingFailureException.class, DuplicateKeyException.class })
+    public ResponseEntity<Map<String, String>> handleConflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "conflict",
+                "message", "The document was changed by someone else; reload it and try again."));
+    }
+}
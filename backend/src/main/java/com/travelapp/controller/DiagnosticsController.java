@@ -0,0 +1,88 @@
+package com.travelapp.controller;
+
+import com.travelapp.service.AdvisoryRuleEngine;
+import com.travelapp.service.CompliancePromptBuilder;
+import com.travelapp.service.LlmResponseCache;
+import com.travelapp.service.LlmService;
+import com.travelapp.service.NotificationService;
+import com.travelapp.service.ValidationCacheService;
+import com.travelapp.service.WorkflowEventService;
+import com.travelapp.service.WorkflowParserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    @Autowired
+    private ValidationCacheService validationCache;
+
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+
+    @Autowired
+    private LlmService llmService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private AdvisoryRuleEngine advisoryRuleEngine;
+
+    @Autowired
+    private WorkflowEventService workflowEventService;
+
+    @Autowired
+    private WorkflowParserService workflowParserService;
+
+    @Autowired
+    private CompliancePromptBuilder compliancePromptBuilder;
+
+    @GetMapping("/validation-cache")
+    public Map<String, Object> getValidationCacheStats() {
+        return validationCache.getStats();
+    }
+
+    @GetMapping("/llm-cache")
+    public Map<String, Object> getLlmCacheStats() {
+        return llmResponseCache.getStats();
+    }
+
+    @GetMapping("/llm")
+    public Map<String, Object> getLlmResilienceStats() {
+        return llmService.getResilienceStats();
+    }
+
+    @GetMapping("/llm-tokens")
+    public Map<String, Object> getLlmTokenUsage() {
+        return llmService.getTokenUsageStats();
+    }
+
+    @GetMapping("/compliance-prompts")
+    public Map<String, Object> getCompliancePromptStats() {
+        return compliancePromptBuilder.getStats();
+    }
+
+    @GetMapping("/mail-queue")
+    public Map<String, Object> getMailQueueStats() {
+        return notificationService.getStats();
+    }
+
+    @GetMapping("/advisory-rules")
+    public Map<String, Object> getAdvisoryRuleStats() {
+        return advisoryRuleEngine.getStats();
+    }
+
+    @GetMapping("/events")
+    public Map<String, Object> getEventStats() {
+        return workflowEventService.getStats();
+    }
+
+    @GetMapping("/parser")
+    public Map<String, Object> getParserStats() {
+        return workflowParserService.getStats();
+    }
+}
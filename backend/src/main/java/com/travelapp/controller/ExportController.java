@@ -0,0 +1,68 @@
+package com.travelapp.controller;
+
+import com.travelapp.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk NDJSON exports for reporting and backups. Responses are gzip-encoded when
+ * the client sends Accept-Encoding: gzip (e.g. curl --compressed).
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    @GetMapping("/workflows")
+    public ResponseEntity<StreamingResponseBody> exportWorkflows(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream("workflows", acceptEncoding, exportService::exportWorkflows);
+    }
+
+    @GetMapping("/advisories")
+    public ResponseEntity<StreamingResponseBody> exportAdvisories(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream("advisories", acceptEncoding, exportService::exportAdvisories);
+    }
+
+    private interface Exporter {
+        long export(OutputStream out) throws IOException;
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, String acceptEncoding, Exporter exporter) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            long started = System.currentTimeMillis();
+            long count;
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                count = exporter.export(compressed);
+                compressed.finish();
+            } else {
+                count = exporter.export(out);
+            }
+            out.flush();
+            System.out.println("Exported " + count + " " + name + " in " + (System.currentTimeMillis() - started) + " ms");
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".ndjson\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
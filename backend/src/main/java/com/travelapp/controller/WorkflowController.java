@@ -1,11 +1,31 @@
 package com.travelapp.controller;
 
 import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.StepPatch;
+import com.travelapp.model.WorkflowFilter;
+import com.travelapp.model.WorkflowPage;
 import com.travelapp.model.WorkflowStep;
 import com.travelapp.repository.BookingWorkflowRepository;
+import com.travelapp.service.BatchParseService;
+import com.travelapp.service.WorkflowEventService;
+import com.travelapp.service.WorkflowIntakeService;
+import com.travelapp.service.WorkflowListingService;
+import com.travelapp.service.WorkflowWriteService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -16,34 +36,80 @@ public class WorkflowController {
     @Autowired
     private BookingWorkflowRepository repository;
 
+    @Autowired
+    private WorkflowListingService listingService;
+
+    @Autowired
+    private WorkflowEventService eventService;
+
+    @Autowired
+    private WorkflowWriteService workflowWriter;
+
     @GetMapping
-    public List<BookingWorkflow> getAllWorkflows() {
-        return repository.findAll();
+    public ResponseEntity<WorkflowPage> getAllWorkflows(
+            @RequestParam(required = false) String agentId,
+            @RequestParam(required = false) Boolean finished,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDateFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate travelDateTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        WorkflowFilter filter = new WorkflowFilter(agentId, finished, travelDateFrom, travelDateTo);
+        try {
+            return ResponseEntity.ok(listingService.list(filter, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @Autowired
-    private com.travelapp.service.WorkflowParserService parserService;
+    private WorkflowIntakeService intakeService;
+
+    @Autowired
+    private BatchParseService batchParseService;
 
     @Autowired
     private com.travelapp.service.AdvisoryImpactService impactService;
 
     @PostMapping("/parse")
     public BookingWorkflow parseWorkflow(@RequestBody String plainText) {
-        com.travelapp.model.ParsedItinerary result = parserService.parseItinerary(plainText);
-
-        BookingWorkflow workflow = new BookingWorkflow();
-        workflow.setCustomerName(result.getTitle());
-        workflow.setCustomerEmail(result.getCustomerEmail());
-        workflow.setSteps(result.getSteps());
-        workflow.setTravelDate(result.getTravelDate());
-        workflow.setSource(result.getSource());
-        workflow.setDestination(result.getDestination());
-        workflow.setFinished(false);
-
-        // Validate immediately so warnings are persisted
-        advisoryService.validateWorkflow(workflow);
+        return intakeService.createFromText(plainText);
+    }
+
+    /**
+     * Like /parse, but streams the steps as they are generated (Server-Sent Events,
+     * see WorkflowIntakeService#createFromTextStreaming).
+     */
+    @PostMapping(path = "/parse/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter parseWorkflowStream(@RequestBody String plainText, HttpServletResponse response) {
+        response.setHeader("X-Accel-Buffering", "no");
+        return intakeService.createFromTextStreaming(plainText);
+    }
+
+    /**
+     * Accepts a JSON array or NDJSON of requests (strings, or objects with "text"
+     * and an optional "id") and streams back one NDJSON result line per item.
+     */
+    @PostMapping(path = "/parse/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> parseWorkflowBatch(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, InputStream body) throws IOException {
+        List<BatchParseService.Item> items;
+        try {
+            items = batchParseService.readItems(body, MediaType.APPLICATION_NDJSON.includes(contentType));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        return repository.save(workflow);
+        StreamingResponseBody stream = out -> {
+            long started = System.currentTimeMillis();
+            long count = batchParseService.parseBatch(items, out);
+            System.out.println("Batch parsed " + count + " requests in " + (System.currentTimeMillis() - started) + " ms");
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                // Stop nginx from holding results back until the batch is done
+                .header("X-Accel-Buffering", "no")
+                .body(stream);
     }
 
     @PostMapping
@@ -62,12 +128,78 @@ public class WorkflowController {
         }
 
         advisoryService.validateWorkflow(workflow);
-        return repository.save(workflow);
+        BookingWorkflow saved = repository.save(workflow);
+        eventService.publishCreated(saved);
+        return saved;
     }
 
     @PutMapping("/{id}")
-    public BookingWorkflow updateWorkflow(@PathVariable String id, @RequestBody BookingWorkflow workflow) {
-        return repository.save(workflow);
+    public ResponseEntity<BookingWorkflow> updateWorkflow(@PathVariable String id, @RequestBody BookingWorkflow workflow) {
+        // The version the client loaded is required; without it save() would attempt an insert
+        if (workflow.getVersion() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        BookingWorkflow saved;
+        try {
+            // Edits racing another writer are merged where they do not overlap; see WorkflowWriteService.saveClientCopy
+            saved = workflowWriter.saveClientCopy(workflow);
+        } catch (OptimisticLockingFailureException e) {
+            // Conflicting edits: hand back the current copy for the client to resolve
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(repository.findById(id).orElse(null));
+        }
+        if (saved == null) {
+            return ResponseEntity.notFound().build();
+        }
+        eventService.publishUpdated(saved);
+        // Edited steps get their advisory check in the background; the result is pushed
+        eventService.requestRevalidation(saved.getId());
+        return ResponseEntity.ok(saved);
+    }
+
+    @PatchMapping("/{id}/steps/{stepId}")
+    public ResponseEntity<WorkflowStep> updateStep(@PathVariable String id, @PathVariable String stepId,
+            @RequestBody StepPatch patch) {
+        if (patch.isEmpty() || !hasValidMetadataKeys(patch)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Only the step's own fields are written; the rest of the document stays as stored
+        BookingWorkflow updated = repository.updateStep(id, stepId, patch);
+        if (updated == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Patchable fields are not inputs of the advisory check, so no re-validation is needed
+        eventService.publishUpdated(updated);
+        return updated.getSteps().stream()
+                .filter(step -> stepId.equals(step.getId()))
+                .findFirst()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static boolean hasValidMetadataKeys(StepPatch patch) {
+        if (patch.getMetadata() == null) {
+            return true;
+        }
+        // Keys become part of a field path
+        for (String key : patch.getMetadata().keySet()) {
+            if (key.isEmpty() || key.contains(".") || key.startsWith("$")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAllWorkflowEvents(HttpServletResponse response) {
+        // Stop nginx from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        return eventService.subscribeAll();
+    }
+
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamWorkflowEvents(@PathVariable String id, HttpServletResponse response) {
+        response.setHeader("X-Accel-Buffering", "no");
+        return eventService.subscribe(id);
     }
 
     @Autowired
@@ -76,13 +208,18 @@ public class WorkflowController {
     @GetMapping("/{id}")
     public BookingWorkflow getWorkflow(@PathVariable String id) {
         BookingWorkflow workflow = repository.findById(id).orElse(null);
-        if (workflow != null && !workflow.isFinished()) {
-            // Validate and SAVE if new warnings found
-            // This ensures subsequent polls don't need to re-run expensive LLM if nothing
-            // changed
-            boolean changed = advisoryService.validateWorkflow(workflow);
-            if (changed) {
-                repository.save(workflow);
+        // Re-validate only when the advisory set or the steps changed since the last check
+        if (workflow != null && !workflow.isFinished() && !advisoryService.isValidationCurrent(workflow)) {
+            try {
+                BookingWorkflow saved = workflowWriter.applyAndSave(workflow, latest -> !latest.isFinished()
+                        && !advisoryService.isValidationCurrent(latest) && advisoryService.validateWorkflow(latest));
+                if (saved != null) {
+                    workflow = saved;
+                    eventService.publishUpdated(saved);
+                }
+            } catch (OptimisticLockingFailureException e) {
+                // Still contended after retries; serve the check unsaved, the next read tries again
+                System.err.println("Could not save validation of workflow " + id + ": " + e.getMessage());
             }
         }
         return workflow;
@@ -1,8 +1,12 @@
 package com.travelapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Locale;
+
 @Document(collection = "advisories")
 public class Advisory {
     @Id
@@ -11,6 +15,11 @@ public class Advisory {
     private String targetCountry;
     private String severity; // HIGH, MEDIUM, LOW
     private String description;
+    // Countries, severity and description, normalized; one document per key, even across instances.
+    // Sparse: advisories stored before the key existed do not have one
+    @JsonIgnore
+    @Indexed(unique = true, sparse = true)
+    private String naturalKey;
 
     public Advisory() {
     }
@@ -61,4 +70,25 @@ public class Advisory {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public String getNaturalKey() {
+        return naturalKey;
+    }
+
+    public void setNaturalKey(String naturalKey) {
+        this.naturalKey = naturalKey;
+    }
+
+    /**
+     * The key two equivalent advisories share: same countries, severity and
+     * description, ignoring case and surrounding whitespace.
+     */
+    public String computeNaturalKey() {
+        return normalize(sourceCountry) + "|" + normalize(targetCountry) + "|" + normalize(severity) + "|"
+                + normalize(description);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
 }
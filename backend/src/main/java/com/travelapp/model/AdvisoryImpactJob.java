@@ -0,0 +1,134 @@
+package com.travelapp.model;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one background advisory impact run. Held in memory only; counters
+ * are updated by the worker and read concurrently by the status endpoint.
+ */
+public class AdvisoryImpactJob {
+
+    private final String id;
+    private final String advisoryId;
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private final Instant createdAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    private final AtomicInteger scanned = new AtomicInteger();
+    private final AtomicInteger impacted = new AtomicInteger();
+    private final AtomicInteger cloned = new AtomicInteger();
+    private final AtomicInteger notified = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger(); // already handled by an earlier run
+
+    public AdvisoryImpactJob(String id, String advisoryId) {
+        this.id = id;
+        this.advisoryId = advisoryId;
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    public void markCompleted() {
+        finishedAt = Instant.now();
+        status = JobStatus.COMPLETED;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = JobStatus.FAILED;
+    }
+
+    public boolean isDone() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+
+    public void incrementScanned() {
+        scanned.incrementAndGet();
+    }
+
+    public void incrementImpacted() {
+        impacted.incrementAndGet();
+    }
+
+    public void incrementCloned() {
+        cloned.incrementAndGet();
+    }
+
+    public void incrementNotified() {
+        notified.incrementAndGet();
+    }
+
+    public void incrementFailed() {
+        failed.incrementAndGet();
+    }
+
+    public void incrementSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAdvisoryId() {
+        return advisoryId;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public int getScanned() {
+        return scanned.get();
+    }
+
+    public int getImpacted() {
+        return impacted.get();
+    }
+
+    public int getCloned() {
+        return cloned.get();
+    }
+
+    public int getNotified() {
+        return notified.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,131 @@
+package com.travelapp.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * How far impact processing got for one (advisory, booking) pair. Re-runs of the
+ * same advisory read it to skip finished bookings and resume partial ones
+ * without repeating the LLM call, the clone or the email. A run claims the record
+ * (claimedUntil) before working on the booking, so concurrent runs on other
+ * instances leave it alone.
+ */
+@Document(collection = "advisory_impact_records")
+public class AdvisoryImpactRecord {
+
+    public enum Stage {
+        CLAIMED,   // taken by a run; nothing stored yet
+        SCRIPTED,  // script and estimates stored
+        CLONED,    // review clone saved
+        NOTIFIED   // customer emailed; nothing left to do
+    }
+
+    @Id
+    private String id; // advisoryId:workflowId
+    @Indexed
+    private String advisoryId;
+    private String workflowId;
+    private Stage stage;
+    private String cloneId;
+    private String agentScript;
+    private String estimatedCost;
+    private String estimatedTimeDelay;
+    private Instant updatedAt;
+    private Instant claimedUntil;
+
+    public AdvisoryImpactRecord() {
+    }
+
+    public AdvisoryImpactRecord(String advisoryId, String workflowId) {
+        this.id = key(advisoryId, workflowId);
+        this.advisoryId = advisoryId;
+        this.workflowId = workflowId;
+    }
+
+    public static String key(String advisoryId, String workflowId) {
+        return advisoryId + ":" + workflowId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAdvisoryId() {
+        return advisoryId;
+    }
+
+    public void setAdvisoryId(String advisoryId) {
+        this.advisoryId = advisoryId;
+    }
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(String workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public void setStage(Stage stage) {
+        this.stage = stage;
+    }
+
+    public String getCloneId() {
+        return cloneId;
+    }
+
+    public void setCloneId(String cloneId) {
+        this.cloneId = cloneId;
+    }
+
+    public String getAgentScript() {
+        return agentScript;
+    }
+
+    public void setAgentScript(String agentScript) {
+        this.agentScript = agentScript;
+    }
+
+    public String getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    public void setEstimatedCost(String estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
+
+    public String getEstimatedTimeDelay() {
+        return estimatedTimeDelay;
+    }
+
+    public void setEstimatedTimeDelay(String estimatedTimeDelay) {
+        this.estimatedTimeDelay = estimatedTimeDelay;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Instant claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+}
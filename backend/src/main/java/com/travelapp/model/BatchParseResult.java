@@ -0,0 +1,68 @@
+package com.travelapp.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of a batch parse response: the created workflow, or why the item
+ * failed. index is the item's position in the request, id the caller's own
+ * reference if it sent one.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchParseResult {
+
+    private int index;
+    private String id;
+    private BookingWorkflow workflow;
+    private String error;
+
+    public BatchParseResult() {
+    }
+
+    public static BatchParseResult created(int index, String id, BookingWorkflow workflow) {
+        BatchParseResult result = new BatchParseResult();
+        result.index = index;
+        result.id = id;
+        result.workflow = workflow;
+        return result;
+    }
+
+    public static BatchParseResult failed(int index, String id, String error) {
+        BatchParseResult result = new BatchParseResult();
+        result.index = index;
+        result.id = id;
+        result.error = error;
+        return result;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public BookingWorkflow getWorkflow() {
+        return workflow;
+    }
+
+    public void setWorkflow(BookingWorkflow workflow) {
+        this.workflow = workflow;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
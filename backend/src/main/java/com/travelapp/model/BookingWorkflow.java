@@ -1,12 +1,24 @@
 package com.travelapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 
 @Document(collection = "workflows")
+@CompoundIndexes({
+        // Back the advisory impact scan: country equality first, then the travel date range
+        @CompoundIndex(name = "source_country_travel_date", def = "{'sourceCountry': 1, 'travelDate': 1}"),
+        @CompoundIndex(name = "destination_country_travel_date", def = "{'destinationCountry': 1, 'travelDate': 1}"),
+        // Keyset pagination of the listing, newest first, overall and per agent
+        @CompoundIndex(name = "created_at_id", def = "{'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "agent_created_at_id", def = "{'agentId': 1, 'createdAt': -1, '_id': -1}")
+})
 public class BookingWorkflow {
 
     @Id
@@ -19,6 +31,20 @@ public class BookingWorkflow {
     private List<WorkflowStep> steps;
     private boolean isFinished;
     private java.time.LocalDate travelDate;
+    // Normalized country keys derived from source/destination on every save
+    private String sourceCountry;
+    private String destinationCountry;
+    @JsonIgnore
+    private Integer countryKeyVersion;
+    private java.time.Instant createdAt;
+    // Advisory epoch and step hash of the last completed compliance check
+    @JsonIgnore
+    private Long validatedAdvisoryVersion;
+    @JsonIgnore
+    private String validatedStepsHash;
+    // Optimistic lock: save() only succeeds against the version it was loaded at
+    @Version
+    private Long version;
 
     public BookingWorkflow() {
     }
@@ -106,4 +132,60 @@ public class BookingWorkflow {
     public void setTravelDate(java.time.LocalDate travelDate) {
         this.travelDate = travelDate;
     }
+
+    public String getSourceCountry() {
+        return sourceCountry;
+    }
+
+    public void setSourceCountry(String sourceCountry) {
+        this.sourceCountry = sourceCountry;
+    }
+
+    public String getDestinationCountry() {
+        return destinationCountry;
+    }
+
+    public void setDestinationCountry(String destinationCountry) {
+        this.destinationCountry = destinationCountry;
+    }
+
+    public Integer getCountryKeyVersion() {
+        return countryKeyVersion;
+    }
+
+    public void setCountryKeyVersion(Integer countryKeyVersion) {
+        this.countryKeyVersion = countryKeyVersion;
+    }
+
+    public java.time.Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(java.time.Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getValidatedAdvisoryVersion() {
+        return validatedAdvisoryVersion;
+    }
+
+    public void setValidatedAdvisoryVersion(Long validatedAdvisoryVersion) {
+        this.validatedAdvisoryVersion = validatedAdvisoryVersion;
+    }
+
+    public String getValidatedStepsHash() {
+        return validatedStepsHash;
+    }
+
+    public void setValidatedStepsHash(String validatedStepsHash) {
+        this.validatedStepsHash = validatedStepsHash;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
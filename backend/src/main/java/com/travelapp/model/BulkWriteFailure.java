@@ -0,0 +1,41 @@
+package com.travelapp.model;
+
+/**
+ * One rejected document from an unordered bulk write.
+ */
+public class BulkWriteFailure {
+
+    public static final int DUPLICATE_KEY = 11000;
+
+    private final int index;
+    private final String id;
+    private final int code;
+    private final String message;
+
+    public BulkWriteFailure(int index, String id, int code, String message) {
+        this.index = index;
+        this.id = id;
+        this.code = code;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isDuplicateKey() {
+        return code == DUPLICATE_KEY;
+    }
+}
@@ -0,0 +1,38 @@
+package com.travelapp.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Named monotonic counter, incremented atomically with findAndModify.
+ */
+@Document(collection = "counters")
+public class Counter {
+    @Id
+    private String id;
+    private long value;
+
+    public Counter() {
+    }
+
+    public Counter(String id, long value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,69 @@
+package com.travelapp.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "llm_cache")
+public class LlmCacheEntry {
+    @Id
+    private String key; // SHA-256 of caller + normalized prompt
+    private String caller;
+    private String response;
+    private Instant createdAt;
+    @Indexed(expireAfter = "0s") // Mongo drops the entry once expiresAt passes
+    private Instant expiresAt;
+
+    public LlmCacheEntry() {
+    }
+
+    public LlmCacheEntry(String key, String caller, String response, Instant createdAt, Instant expiresAt) {
+        this.key = key;
+        this.caller = caller;
+        this.response = response;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getCaller() {
+        return caller;
+    }
+
+    public void setCaller(String caller) {
+        this.caller = caller;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public void setResponse(String response) {
+        this.response = response;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.travelapp.model;
+
+import java.util.Map;
+
+/**
+ * Partial update of one workflow step; null fields are left untouched. Metadata
+ * entries are merged key by key, and a null value removes the key.
+ */
+public class StepPatch {
+
+    private WorkflowStep.StepStatus status;
+    private Boolean completed;
+    private String warning;
+    private Map<String, Object> metadata;
+
+    public StepPatch() {
+    }
+
+    public boolean isEmpty() {
+        return status == null && completed == null && warning == null && (metadata == null || metadata.isEmpty());
+    }
+
+    public WorkflowStep.StepStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(WorkflowStep.StepStatus status) {
+        this.status = status;
+    }
+
+    public Boolean getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Boolean completed) {
+        this.completed = completed;
+    }
+
+    public String getWarning() {
+        return warning;
+    }
+
+    public void setWarning(String warning) {
+        this.warning = warning;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+    }
+}
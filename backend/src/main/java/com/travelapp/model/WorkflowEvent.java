@@ -0,0 +1,68 @@
+package com.travelapp.model;
+
+import java.time.Instant;
+
+/**
+ * Change notice pushed to subscribers of the all-workflows event stream.
+ */
+public class WorkflowEvent {
+
+    public enum Type { CREATED, UPDATED }
+
+    private Type type;
+    private String workflowId;
+    private String customerName;
+    private boolean finished;
+    private Instant timestamp;
+
+    public WorkflowEvent() {
+    }
+
+    public WorkflowEvent(Type type, BookingWorkflow workflow) {
+        this.type = type;
+        this.workflowId = workflow.getId();
+        this.customerName = workflow.getCustomerName();
+        this.finished = workflow.isFinished();
+        this.timestamp = Instant.now();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(String workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+}
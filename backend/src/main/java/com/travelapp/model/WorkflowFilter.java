@@ -0,0 +1,56 @@
+package com.travelapp.model;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters for listing workflows; null fields do not constrain.
+ */
+public class WorkflowFilter {
+
+    private String agentId;
+    private Boolean finished;
+    private LocalDate travelDateFrom;
+    private LocalDate travelDateTo;
+
+    public WorkflowFilter() {
+    }
+
+    public WorkflowFilter(String agentId, Boolean finished, LocalDate travelDateFrom, LocalDate travelDateTo) {
+        this.agentId = agentId;
+        this.finished = finished;
+        this.travelDateFrom = travelDateFrom;
+        this.travelDateTo = travelDateTo;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public Boolean getFinished() {
+        return finished;
+    }
+
+    public void setFinished(Boolean finished) {
+        this.finished = finished;
+    }
+
+    public LocalDate getTravelDateFrom() {
+        return travelDateFrom;
+    }
+
+    public void setTravelDateFrom(LocalDate travelDateFrom) {
+        this.travelDateFrom = travelDateFrom;
+    }
+
+    public LocalDate getTravelDateTo() {
+        return travelDateTo;
+    }
+
+    public void setTravelDateTo(LocalDate travelDateTo) {
+        this.travelDateTo = travelDateTo;
+    }
+}
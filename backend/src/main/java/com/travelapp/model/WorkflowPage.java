@@ -0,0 +1,37 @@
+package com.travelapp.model;
+
+import java.util.List;
+
+/**
+ * One page of the workflow listing. Pass nextCursor back to get the following
+ * page; it is null on the last one.
+ */
+public class WorkflowPage {
+
+    private List<WorkflowSummary> items;
+    private String nextCursor;
+
+    public WorkflowPage() {
+    }
+
+    public WorkflowPage(List<WorkflowSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<WorkflowSummary> getItems() {
+        return items;
+    }
+
+    public void setItems(List<WorkflowSummary> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
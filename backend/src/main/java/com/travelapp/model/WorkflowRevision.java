@@ -0,0 +1,158 @@
+package com.travelapp.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The client-editable part of a workflow as saved at one version. A stale PUT is
+ * merged three-way against the revision the client loaded.
+ */
+@Document(collection = "workflow_revisions")
+public class WorkflowRevision {
+    @Id
+    private String id; // workflowId:version
+    private String workflowId;
+    private Long version;
+    private String agentId;
+    private String customerName;
+    private String customerEmail;
+    private String source;
+    private String destination;
+    private LocalDate travelDate;
+    private boolean finished;
+    private List<WorkflowStep> steps;
+    @Indexed(expireAfter = "0s") // Mongo drops the revision once expiresAt passes
+    private Instant expiresAt;
+
+    public WorkflowRevision() {
+    }
+
+    public static String key(String workflowId, Long version) {
+        return workflowId + ":" + version;
+    }
+
+    public static WorkflowRevision of(BookingWorkflow workflow, Instant expiresAt) {
+        WorkflowRevision revision = new WorkflowRevision();
+        revision.id = key(workflow.getId(), workflow.getVersion());
+        revision.workflowId = workflow.getId();
+        revision.version = workflow.getVersion();
+        revision.agentId = workflow.getAgentId();
+        revision.customerName = workflow.getCustomerName();
+        revision.customerEmail = workflow.getCustomerEmail();
+        revision.source = workflow.getSource();
+        revision.destination = workflow.getDestination();
+        revision.travelDate = workflow.getTravelDate();
+        revision.finished = workflow.isFinished();
+        revision.steps = workflow.getSteps();
+        revision.expiresAt = expiresAt;
+        return revision;
+    }
+
+    public BookingWorkflow toWorkflow() {
+        BookingWorkflow workflow = new BookingWorkflow(workflowId, agentId, customerName, customerEmail, source,
+                destination, steps, finished, travelDate);
+        workflow.setVersion(version);
+        return workflow;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(String workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public LocalDate getTravelDate() {
+        return travelDate;
+    }
+
+    public void setTravelDate(LocalDate travelDate) {
+        this.travelDate = travelDate;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    public List<WorkflowStep> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(List<WorkflowStep> steps) {
+        this.steps = steps;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,88 @@
+package com.travelapp.model;
+
+import org.springframework.data.annotation.Id;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * List view of a workflow: the header fields only, without steps and their
+ * metadata (agent scripts and the like). Read straight from the workflows
+ * collection with a field projection.
+ */
+public class WorkflowSummary {
+
+    @Id
+    private String id;
+    private String agentId;
+    private String customerName;
+    private String source;
+    private String destination;
+    private boolean isFinished;
+    private LocalDate travelDate;
+    private Instant createdAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public boolean isFinished() {
+        return isFinished;
+    }
+
+    public void setFinished(boolean finished) {
+        isFinished = finished;
+    }
+
+    public LocalDate getTravelDate() {
+        return travelDate;
+    }
+
+    public void setTravelDate(LocalDate travelDate) {
+        this.travelDate = travelDate;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
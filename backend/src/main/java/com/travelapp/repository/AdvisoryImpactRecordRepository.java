@@ -0,0 +1,11 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.AdvisoryImpactRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AdvisoryImpactRecordRepository extends MongoRepository<AdvisoryImpactRecord, String>, AdvisoryImpactRecordRepositoryCustom {
+
+    void deleteByAdvisoryId(String advisoryId);
+}
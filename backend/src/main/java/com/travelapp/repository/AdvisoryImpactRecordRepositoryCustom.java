@@ -0,0 +1,23 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.AdvisoryImpactRecord;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+public interface AdvisoryImpactRecordRepositoryCustom {
+
+    /**
+     * Upserts the records with one unordered bulk write.
+     */
+    void bulkSave(List<AdvisoryImpactRecord> records);
+
+    /**
+     * Atomically claims the advisory's records for these bookings for the lease,
+     * creating CLAIMED records where none exist. A record is not claimed when it is
+     * NOTIFIED or another run's lease on it has not expired. Returns the workflow
+     * ids claimed.
+     */
+    Set<String> claim(String advisoryId, List<String> workflowIds, Duration lease);
+}
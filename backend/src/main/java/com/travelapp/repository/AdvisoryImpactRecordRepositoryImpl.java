@@ -0,0 +1,69 @@
+package com.travelapp.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.travelapp.model.AdvisoryImpactRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class AdvisoryImpactRecordRepositoryImpl implements AdvisoryImpactRecordRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void bulkSave(List<AdvisoryImpactRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdvisoryImpactRecord.class);
+        for (AdvisoryImpactRecord record : records) {
+            bulk.replaceOne(Query.query(Criteria.where("_id").is(record.getId())), record,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public Set<String> claim(String advisoryId, List<String> workflowIds, Duration lease) {
+        Set<String> claimed = new HashSet<>(workflowIds);
+        if (workflowIds.isEmpty()) {
+            return claimed;
+        }
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdvisoryImpactRecord.class);
+        for (String workflowId : workflowIds) {
+            // No match means finished or leased elsewhere; the upsert then collides on _id and fails,
+            // so every op either claims its record or reports an error
+            Query query = Query.query(Criteria.where("_id").is(AdvisoryImpactRecord.key(advisoryId, workflowId))
+                    .and("stage").ne(AdvisoryImpactRecord.Stage.NOTIFIED.name())
+                    .orOperator(Criteria.where("claimedUntil").is(null), Criteria.where("claimedUntil").lt(now)));
+            Update update = new Update()
+                    .set("claimedUntil", now.plus(lease))
+                    .setOnInsert("advisoryId", advisoryId)
+                    .setOnInsert("workflowId", workflowId)
+                    .setOnInsert("stage", AdvisoryImpactRecord.Stage.CLAIMED.name())
+                    .setOnInsert("updatedAt", now);
+            bulk.upsert(query, update);
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                claimed.remove(workflowIds.get(error.getIndex()));
+            }
+        }
+        return claimed;
+    }
+}
@@ -4,7 +4,7 @@ import com.travelapp.model.Advisory;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 
-public interface AdvisoryRepository extends MongoRepository<Advisory, String> {
+public interface AdvisoryRepository extends MongoRepository<Advisory, String>, AdvisoryRepositoryCustom {
     // Find advisories that might be relevant (we'll filter smartly later or use
     // exact match)
     // For now, fetch all active or by country if needed
@@ -0,0 +1,13 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.Advisory;
+
+public interface AdvisoryRepositoryCustom {
+
+    /**
+     * Inserts the advisory (setting its id) unless one with the same natural key is
+     * already stored. Atomic across instances. Returns the stored equivalent, or
+     * null when this advisory was inserted.
+     */
+    Advisory insertIfAbsent(Advisory advisory);
+}
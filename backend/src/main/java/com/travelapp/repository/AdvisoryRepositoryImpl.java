@@ -0,0 +1,38 @@
+package com.travelapp.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import com.travelapp.model.Advisory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class AdvisoryRepositoryImpl implements AdvisoryRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Advisory insertIfAbsent(Advisory advisory) {
+        String key = advisory.computeNaturalKey();
+        advisory.setNaturalKey(key);
+        Query query = Query.query(Criteria.where("naturalKey").is(key));
+        Update update = new Update()
+                .setOnInsert("sourceCountry", advisory.getSourceCountry())
+                .setOnInsert("targetCountry", advisory.getTargetCountry())
+                .setOnInsert("severity", advisory.getSeverity())
+                .setOnInsert("description", advisory.getDescription());
+        try {
+            UpdateResult result = mongoTemplate.upsert(query, update, Advisory.class);
+            if (result.getUpsertedId() != null) {
+                advisory.setId(result.getUpsertedId().asObjectId().getValue().toHexString());
+                return null;
+            }
+        } catch (DuplicateKeyException e) {
+            // Two upserts raced and the unique index let only the other one insert
+        }
+        return mongoTemplate.findOne(query, Advisory.class);
+    }
+}
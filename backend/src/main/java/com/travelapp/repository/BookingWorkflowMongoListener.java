@@ -0,0 +1,42 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.service.CountryResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Keeps the indexed country keys in step with source/destination on every write,
+ * stamps the creation time the listing pages by, and records each saved version
+ * as the base a stale PUT is merged against.
+ */
+@Component
+public class BookingWorkflowMongoListener extends AbstractMongoEventListener<BookingWorkflow> {
+
+    @Autowired
+    private CountryResolver countryResolver;
+
+    @Autowired
+    private WorkflowRevisionRepository revisionRepository;
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<BookingWorkflow> event) {
+        BookingWorkflow workflow = event.getSource();
+        workflow.setSourceCountry(countryResolver.resolve(workflow.getSource()));
+        workflow.setDestinationCountry(countryResolver.resolve(workflow.getDestination()));
+        workflow.setCountryKeyVersion(CountryResolver.KEY_VERSION);
+        if (workflow.getCreatedAt() == null) {
+            workflow.setCreatedAt(Instant.now());
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<BookingWorkflow> event) {
+        revisionRepository.record(event.getSource());
+    }
+}
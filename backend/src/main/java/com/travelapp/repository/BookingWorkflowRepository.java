@@ -2,10 +2,21 @@ package com.travelapp.repository;
 
 import com.travelapp.model.BookingWorkflow;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.stream.Stream;
+
 @Repository
-public interface BookingWorkflowRepository extends MongoRepository<BookingWorkflow, String> {
+public interface BookingWorkflowRepository extends MongoRepository<BookingWorkflow, String>, BookingWorkflowRepositoryCustom {
 
     java.util.List<BookingWorkflow> findByTravelDateAfter(java.time.LocalDate date);
+
+    // Cursor-backed; callers must close the stream. Each $or branch carries the date
+    // bound so it can use its own {country, travelDate} index.
+    @Query("{ '$or': [ "
+            + "{ 'sourceCountry': { '$in': ?1 }, 'travelDate': { '$gt': ?0 } }, "
+            + "{ 'destinationCountry': { '$in': ?1 }, 'travelDate': { '$gt': ?0 } } ] }")
+    Stream<BookingWorkflow> streamByTravelDateAfterAndCountryIn(java.time.LocalDate date, Collection<String> countryKeys);
 }
@@ -0,0 +1,31 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.BulkWriteFailure;
+import com.travelapp.model.StepPatch;
+import com.travelapp.model.WorkflowFilter;
+import com.travelapp.model.WorkflowSummary;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface BookingWorkflowRepositoryCustom {
+
+    /**
+     * Summaries newest first (createdAt, then _id, both descending), starting
+     * strictly after the given position; a null afterCreatedAt starts at the top.
+     */
+    List<WorkflowSummary> findSummaries(WorkflowFilter filter, Instant afterCreatedAt, String afterId, int limit);
+
+    /**
+     * Inserts the workflows with one unordered bulk write: every document is
+     * attempted, and the ones Mongo rejected come back with their index and error.
+     */
+    List<BulkWriteFailure> bulkInsert(List<BookingWorkflow> workflows);
+
+    /**
+     * Applies the patch to one step in place with positional $set/$unset, and
+     * returns the updated workflow, or null when no workflow has that step.
+     */
+    BookingWorkflow updateStep(String workflowId, String stepId, StepPatch patch);
+}
@@ -0,0 +1,130 @@
+package com.travelapp.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.BulkWriteFailure;
+import com.travelapp.model.StepPatch;
+import com.travelapp.model.WorkflowFilter;
+import com.travelapp.model.WorkflowSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoTemplate-backed part of {@link BookingWorkflowRepository}; Spring Data
+ * picks it up by the Impl suffix.
+ */
+public class BookingWorkflowRepositoryImpl implements BookingWorkflowRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private WorkflowRevisionRepository revisionRepository;
+
+    @Override
+    public List<WorkflowSummary> findSummaries(WorkflowFilter filter, Instant afterCreatedAt, String afterId, int limit) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.getAgentId() != null) {
+            criteria.add(Criteria.where("agentId").is(filter.getAgentId()));
+        }
+        if (filter.getFinished() != null) {
+            criteria.add(Criteria.where("isFinished").is(filter.getFinished()));
+        }
+        if (filter.getTravelDateFrom() != null || filter.getTravelDateTo() != null) {
+            Criteria travelDate = Criteria.where("travelDate");
+            if (filter.getTravelDateFrom() != null) {
+                travelDate.gte(filter.getTravelDateFrom());
+            }
+            if (filter.getTravelDateTo() != null) {
+                travelDate.lte(filter.getTravelDateTo());
+            }
+            criteria.add(travelDate);
+        }
+        if (afterCreatedAt != null) {
+            // Keyset: strictly after the last row of the previous page, ties broken by _id
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(afterCreatedAt),
+                    Criteria.where("createdAt").is(afterCreatedAt).and("_id").lt(afterId)));
+        }
+
+        Query query = criteria.isEmpty() ? new Query() : new Query(new Criteria().andOperator(criteria));
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt", "_id")).limit(limit);
+        query.fields().include("agentId", "customerName", "source", "destination", "isFinished", "travelDate", "createdAt");
+
+        return mongoTemplate.find(query, WorkflowSummary.class,
+                mongoTemplate.getCollectionName(BookingWorkflow.class));
+    }
+
+    @Override
+    public List<BulkWriteFailure> bulkInsert(List<BookingWorkflow> workflows) {
+        if (workflows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Bulk inserts still run the BeforeConvert listener (country keys, createdAt)
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BookingWorkflow.class);
+        bulk.insert(workflows);
+        try {
+            bulk.execute();
+            return Collections.emptyList();
+        } catch (BulkOperationException e) {
+            List<BulkWriteFailure> failures = new ArrayList<>(e.getErrors().size());
+            for (BulkWriteError error : e.getErrors()) {
+                failures.add(new BulkWriteFailure(error.getIndex(), workflows.get(error.getIndex()).getId(),
+                        error.getCode(), error.getMessage()));
+            }
+            return failures;
+        }
+    }
+
+    @Override
+    public BookingWorkflow updateStep(String workflowId, String stepId, StepPatch patch) {
+        // Bumping the version makes a concurrent whole-document save conflict instead of undoing the patch
+        Update update = new Update().inc("version", 1);
+        if (patch.getStatus() != null) {
+            update.set("steps.$.status", patch.getStatus());
+        }
+        if (patch.getCompleted() != null) {
+            update.set("steps.$.isCompleted", patch.getCompleted());
+        }
+        if (patch.getWarning() != null) {
+            // An empty warning dismisses it
+            if (patch.getWarning().isEmpty()) {
+                update.unset("steps.$.warning");
+            } else {
+                update.set("steps.$.warning", patch.getWarning());
+            }
+        }
+        if (patch.getMetadata() != null) {
+            for (Map.Entry<String, Object> entry : patch.getMetadata().entrySet()) {
+                String path = "steps.$.metadata." + entry.getKey();
+                if (entry.getValue() == null) {
+                    update.unset(path);
+                } else {
+                    update.set(path, entry.getValue());
+                }
+            }
+        }
+
+        Query query = new Query(Criteria.where("_id").is(workflowId).and("steps.id").is(stepId));
+        BookingWorkflow updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), BookingWorkflow.class);
+        if (updated != null) {
+            // findAndModify raises no save events, so the new version is recorded here
+            revisionRepository.record(updated);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,7 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.LlmCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface LlmCacheRepository extends MongoRepository<LlmCacheEntry, String> {
+}
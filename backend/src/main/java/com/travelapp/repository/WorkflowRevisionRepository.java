@@ -0,0 +1,7 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.WorkflowRevision;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface WorkflowRevisionRepository extends MongoRepository<WorkflowRevision, String>, WorkflowRevisionRepositoryCustom {
+}
@@ -0,0 +1,12 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.BookingWorkflow;
+
+public interface WorkflowRevisionRepositoryCustom {
+
+    /**
+     * Stores the workflow's client-editable fields under its current version.
+     * Failures are logged and swallowed; the workflow itself is already saved.
+     */
+    void record(BookingWorkflow workflow);
+}
@@ -0,0 +1,33 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.WorkflowRevision;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class WorkflowRevisionRepositoryImpl implements WorkflowRevisionRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // A PUT from a client that loaded the workflow longer ago than this gets no merge
+    @Value("${app.workflows.revision-ttl:24h}")
+    private Duration revisionTtl = Duration.ofHours(24);
+
+    @Override
+    public void record(BookingWorkflow workflow) {
+        if (workflow.getId() == null || workflow.getVersion() == null) {
+            return;
+        }
+        try {
+            mongoTemplate.save(WorkflowRevision.of(workflow, Instant.now().plus(revisionTtl)));
+        } catch (Exception e) {
+            System.err.println("Failed to record revision " + workflow.getVersion() + " of workflow "
+                    + workflow.getId() + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,39 @@
 package com.travelapp.service;
 
 import com.travelapp.model.Advisory;
+import com.travelapp.model.AdvisoryImpactJob;
+import com.travelapp.model.AdvisoryImpactRecord;
 import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.BulkWriteFailure;
 import com.travelapp.model.WorkflowStep;
+import com.travelapp.repository.AdvisoryImpactRecordRepository;
 import com.travelapp.repository.BookingWorkflowRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Service
 public class AdvisoryImpactService {
@@ -32,68 +56,525 @@ public class AdvisoryImpactService {
     @Autowired
     private com.travelapp.service.LlmService llmService;
 
+    @Autowired
+    private CountryResolver countryResolver;
+
+    @Autowired
+    private WorkflowEventService eventService;
+
+    @Autowired
+    private WorkflowWriteService workflowWriter;
+
+    @Autowired
+    private AdvisoryImpactRecordRepository recordRepository;
+
+    @Autowired
+    @Qualifier("advisoryFanoutExecutor")
+    private Executor fanoutExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${app.advisory.fanout.concurrency:8}")
+    private int fanoutConcurrency = 8;
+
+    @Value("${app.advisory.script-batch-size:10}")
+    private int scriptBatchSize = 10;
+
+    @Value("${app.advisory.clone-write-batch-size:100}")
+    private int cloneWriteBatchSize = 100;
+
+    // How long a run holds its claim on a booking; another run resumes it only after this
+    @Value("${app.advisory.claim-lease:30m}")
+    private java.time.Duration claimLease = java.time.Duration.ofMinutes(30);
+
+    // How long the end of a run waits for its queued emails to be sent or given up
+    @Value("${app.advisory.delivery-wait:5m}")
+    private java.time.Duration deliveryWait = java.time.Duration.ofMinutes(5);
+
+    @Value("${ai.cache.ttl.customer-response:24h}")
+    private java.time.Duration customerResponseCacheTtl;
+
     public void processNewAdvisory(Advisory advisory) {
+        processNewAdvisory(advisory, new AdvisoryImpactJob(null, advisory.getId()));
+    }
+
+    public void processNewAdvisory(Advisory advisory, AdvisoryImpactJob job) {
+        Timer.Sample run = Timer.start(meterRegistry);
+        try {
+            fanOut(advisory, job);
+        } finally {
+            run.stop(stageTimer("run"));
+        }
+    }
+
+    /**
+     * Duration of one fan-out stage: run (a whole advisory), submit_wait (a batch
+     * waiting for a worker), load_records, scripts (the batched LLM call), booking
+     * (one booking, including its own script call when the batch missed it) and
+     * clone_write (a bulk insert plus queuing its emails).
+     */
+    private Timer stageTimer(String stage) {
+        return Timer.builder("advisory.fanout.stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void fanOut(Advisory advisory, AdvisoryImpactJob job) {
         LocalDate dateLimit = LocalDate.now().minusDays(1);
-        List<BookingWorkflow> futureBookings = workflowRepository.findByTravelDateAfter(dateLimit);
+        Set<String> countryKeys = new HashSet<>();
+        addIfPresent(countryKeys, countryResolver.resolve(advisory.getSourceCountry()));
+        addIfPresent(countryKeys, countryResolver.resolve(advisory.getTargetCountry()));
+        if (countryKeys.isEmpty()) {
+            return;
+        }
 
-        for (BookingWorkflow booking : futureBookings) {
-            if (advisoryService.checkAdvisoryImpact(booking, advisory)) {
+        // Impacted bookings are grouped so one LLM call drafts scripts for a whole batch.
+        // Batches run concurrently, at most fanoutConcurrency in flight; the semaphore
+        // also stops the cursor from running ahead of the workers
+        Semaphore inFlight = new Semaphore(fanoutConcurrency);
+        List<BookingWorkflow> batch = new ArrayList<>(scriptBatchSize);
+        // Clones from all batches are pooled and written with one bulk insert per cloneWriteBatchSize
+        CloneBuffer clones = new CloneBuffer(cloneWriteBatchSize);
+        Deliveries deliveries = new Deliveries();
+
+        // Mongo narrows to candidate bookings by indexed country key; checkAdvisoryImpact confirms each one
+        try (Stream<BookingWorkflow> candidates = workflowRepository.streamByTravelDateAfterAndCountryIn(dateLimit, countryKeys)) {
+            for (BookingWorkflow booking : (Iterable<BookingWorkflow>) candidates::iterator) {
+                job.incrementScanned();
+                // Our own review clones match the same query; never clone a clone
+                if (isReviewCloneFor(booking, advisory) || !advisoryService.checkAdvisoryImpact(booking, advisory)) {
+                    continue;
+                }
+                job.incrementImpacted();
 
-                BookingWorkflow clonedBooking = cloneService.cloneForAdvisoryReview(booking);
-                clonedBooking.setCustomerName(booking.getCustomerName() + " (Advisory Review)");
+                batch.add(booking);
+                if (batch.size() >= scriptBatchSize) {
+                    submitBatch(batch, advisory, job, inFlight, clones, deliveries);
+                    batch = new ArrayList<>(scriptBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submitBatch(batch, advisory, job, inFlight, clones, deliveries);
+            }
 
-                // Generate Agent Script (expecting JSON now)
-                String llmResponse = advisoryService.generateAgentAdvisoryScript(booking, advisory);
-                String agentScript = "";
-                String estimatedCost = "Unknown";
-                String estimatedTimeDelay = "Unknown";
+            // Wait for the tail of the run, then write what is left in the buffer
+            inFlight.acquire(fanoutConcurrency);
+            inFlight.release(fanoutConcurrency);
+            writeClones(clones.drain(), advisory, job, deliveries);
+            // The job's counts are final once every email has gone out or been given up
+            deliveries.await(deliveryWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing advisory " + advisory.getId(), e);
+        }
+    }
 
+    private void submitBatch(List<BookingWorkflow> batch, Advisory advisory, AdvisoryImpactJob job, Semaphore inFlight,
+            CloneBuffer clones, Deliveries deliveries) throws InterruptedException {
+        Timer.Sample wait = Timer.start(meterRegistry);
+        inFlight.acquire();
+        wait.stop(stageTimer("submit_wait"));
+        try {
+            fanoutExecutor.execute(() -> {
                 try {
-                    String cleaned = llmResponse.replace("```json", "").replace("```", "").trim();
-                    com.fasterxml.jackson.databind.JsonNode root = objectMapper.readTree(cleaned);
-                    agentScript = root.has("script") ? root.get("script").asText() : llmResponse;
-                    estimatedCost = root.has("estimatedCost") ? root.get("estimatedCost").asText() : "Unknown";
-                    estimatedTimeDelay = root.has("estimatedTimeDelay") ? root.get("estimatedTimeDelay").asText() : "Unknown";
-                } catch (Exception e) {
-                    System.err.println("Failed to parse Advisory JSON: " + e.getMessage());
-                    agentScript = llmResponse; // Fallback
+                    processBatch(batch, advisory, job, clones, deliveries);
+                } finally {
+                    inFlight.release();
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            batch.forEach(booking -> job.incrementFailed());
+        }
+    }
 
-                WorkflowStep guidanceStep = new WorkflowStep();
-                guidanceStep.setId("advisory-guidance-" + System.nanoTime());
-                guidanceStep.setName("Advisory Impact Review");
-                guidanceStep.setDescription("Review new advisory execution with customer. Estimated Cost: " + estimatedCost + ", Delay: " + estimatedTimeDelay);
-                guidanceStep.setStatus(WorkflowStep.StepStatus.PENDING);
-                guidanceStep.setCompleted(false);
-
-                HashMap<String, Object> metadata = new HashMap<>();
-                metadata.put("advisoryId", advisory.getId());
-                metadata.put("agentScript", agentScript);
-                metadata.put("estimatedCost", estimatedCost);
-                metadata.put("estimatedTimeDelay", estimatedTimeDelay);
-                metadata.put("isAdvisoryTask", true);
-                guidanceStep.setMetadata(metadata);
-
-                if (clonedBooking.getSteps() == null) {
-                    clonedBooking.setSteps(new java.util.ArrayList<>());
-                }
-                clonedBooking.getSteps().add(0, guidanceStep);
+    private void processBatch(List<BookingWorkflow> batch, Advisory advisory, AdvisoryImpactJob job, CloneBuffer clones,
+            Deliveries deliveries) {
+        // Claim the bookings, then one lookup tells us how far earlier runs of this advisory got with each
+        Map<String, AdvisoryImpactRecord> records = stageTimer("load_records").record(() -> claimRecords(batch, advisory));
+
+        List<BookingWorkflow> pending = new ArrayList<>(batch.size());
+        List<BookingWorkflow> needScripts = new ArrayList<>(batch.size());
+        for (BookingWorkflow booking : batch) {
+            AdvisoryImpactRecord record = records.get(booking.getId());
+            // Unclaimed: finished, or another run (possibly on another instance) is on it
+            if (record == null || record.getStage() == AdvisoryImpactRecord.Stage.NOTIFIED) {
+                job.incrementSkipped();
+                continue;
+            }
+            pending.add(booking);
+            if (record.getStage() == AdvisoryImpactRecord.Stage.CLAIMED) {
+                needScripts.add(booking);
+            }
+        }
+
+        // Bookings resumed from a record already have their script
+        Map<String, String> scripts = Collections.emptyMap();
+        if (needScripts.size() > 1) {
+            Timer.Sample scripting = Timer.start(meterRegistry);
+            try {
+                scripts = advisoryService.generateAgentAdvisoryScripts(needScripts, advisory);
+            } catch (Exception e) {
+                // Every booking falls back to its own script call below
+                System.err.println("Batched advisory script generation failed: " + e.getMessage());
+            } finally {
+                scripting.stop(stageTimer("scripts"));
+            }
+        }
+
+        Timer bookingTimer = stageTimer("booking");
+        for (BookingWorkflow booking : pending) {
+            Timer.Sample processing = Timer.start(meterRegistry);
+            try {
+                processImpactedBooking(booking, advisory, records.get(booking.getId()), scripts.get(booking.getId()), job,
+                        clones, deliveries);
+            } catch (Exception e) {
+                // One bad booking must not abort the rest of the run
+                System.err.println("Advisory processing failed for booking " + booking.getId() + ": " + e.getMessage());
+                job.incrementFailed();
+                releaseClaims(List.of(records.get(booking.getId())));
+            } finally {
+                processing.stop(bookingTimer);
+            }
+        }
+    }
+
+    /**
+     * The records of the bookings this run claimed. Without the claim, two runs of
+     * the same advisory could both find no record and both script, clone and email.
+     */
+    private Map<String, AdvisoryImpactRecord> claimRecords(List<BookingWorkflow> batch, Advisory advisory) {
+        List<String> workflowIds = new ArrayList<>(batch.size());
+        for (BookingWorkflow booking : batch) {
+            workflowIds.add(booking.getId());
+        }
+        Set<String> claimed = recordRepository.claim(advisory.getId(), workflowIds, claimLease);
+        List<String> keys = new ArrayList<>(claimed.size());
+        for (String workflowId : claimed) {
+            keys.add(AdvisoryImpactRecord.key(advisory.getId(), workflowId));
+        }
+        Map<String, AdvisoryImpactRecord> byWorkflow = new HashMap<>();
+        if (keys.isEmpty()) {
+            return byWorkflow;
+        }
+        for (AdvisoryImpactRecord record : recordRepository.findAllById(keys)) {
+            byWorkflow.put(record.getWorkflowId(), record);
+        }
+        return byWorkflow;
+    }
 
-                workflowRepository.save(clonedBooking);
+    private static boolean isReviewCloneFor(BookingWorkflow booking, Advisory advisory) {
+        if (booking.getSteps() == null || advisory.getId() == null) {
+            return false;
+        }
+        for (WorkflowStep step : booking.getSteps()) {
+            Map<String, Object> metadata = step.getMetadata();
+            if (metadata != null && Boolean.TRUE.equals(metadata.get("isAdvisoryTask"))
+                    && advisory.getId().equals(metadata.get("advisoryId"))) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                // Send Email
-                String emailBody = "Dear " + booking.getCustomerName() + ",\n\n"
-                        + "An important travel advisory has been issued that affects your trip.\n"
-                        + "Advisory: " + advisory.getDescription() + "\n\n"
-                        + "Impact Analysis:\n"
-                        + "Estimated Cost Impact: " + estimatedCost + "\n"
-                        + "Estimated Delay: " + estimatedTimeDelay + "\n\n"
-                        + "Our agent will be in touch shortly to discuss options.\n\n"
-                        + "Sincerely,\nTravel App Team";
+    private static void addIfPresent(Set<String> keys, String key) {
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * Script, clone, email; a re-run picks up at the first unfinished stage. Clones
+     * go to the buffer and are written in bulk (see {@link #writeClones}).
+     */
+    private void processImpactedBooking(BookingWorkflow booking, Advisory advisory, AdvisoryImpactRecord record,
+            String batchScript, AdvisoryImpactJob job, CloneBuffer clones, Deliveries deliveries) {
+        if (record.getStage() == AdvisoryImpactRecord.Stage.CLAIMED) {
+            scriptBooking(booking, advisory, record, batchScript);
+        }
+
+        if (record.getStage() == AdvisoryImpactRecord.Stage.SCRIPTED) {
+            BookingWorkflow clonedBooking = cloneService.cloneForAdvisoryReview(booking);
+            if (record.getCloneId() == null) {
+                record.setCloneId(clonedBooking.getId());
+            } else {
+                // Resumed: reuse the id of the first attempt so a clone it did write is not duplicated
+                clonedBooking.setId(record.getCloneId());
+            }
+            clonedBooking.setCustomerName(booking.getCustomerName() + " (Advisory Review)");
+            if (clonedBooking.getSteps() == null) {
+                clonedBooking.setSteps(new ArrayList<>());
+            }
+            clonedBooking.getSteps().add(0, guidanceStep(advisory, record));
 
-                String recipient = booking.getCustomerEmail() != null && !booking.getCustomerEmail().isEmpty() ? booking.getCustomerEmail() : "customer@example.com";
-                notificationService.sendEmail(recipient, "Travel Advisory Alert: " + advisory.getSourceCountry() + " to " + advisory.getTargetCountry(), emailBody);
+            List<PendingClone> full = clones.add(new PendingClone(booking, record, clonedBooking));
+            if (full != null) {
+                writeClones(full, advisory, job, deliveries);
             }
+        } else if (record.getStage() == AdvisoryImpactRecord.Stage.CLONED) {
+            // Clone written by an earlier run, email still owed
+            notifyAndRecord(booking, advisory, record, job, deliveries);
+        }
+    }
+
+    /**
+     * Writes a buffer of clones with one unordered bulk insert, then emails the
+     * customers whose clone landed. Records carrying the clone ids are written first,
+     * so after a crash the re-run inserts the same ids; the duplicate-key errors it
+     * then gets mean "already written" and count as success. Landed clones move their
+     * records to CLONED before any email goes out, so a run that dies or fails to mail
+     * is resumed at the email.
+     */
+    private void writeClones(List<PendingClone> pending, Advisory advisory, AdvisoryImpactJob job,
+            Deliveries deliveries) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        stageTimer("clone_write").record(() -> insertClones(pending, advisory, job, deliveries));
+    }
+
+    private void insertClones(List<PendingClone> pending, Advisory advisory, AdvisoryImpactJob job,
+            Deliveries deliveries) {
+        List<AdvisoryImpactRecord> records = new ArrayList<>(pending.size());
+        List<BookingWorkflow> drafts = new ArrayList<>(pending.size());
+        Instant now = Instant.now();
+        for (PendingClone item : pending) {
+            item.record.setUpdatedAt(now);
+            records.add(item.record);
+            drafts.add(item.clone);
+        }
+
+        List<BulkWriteFailure> failures;
+        try {
+            recordRepository.bulkSave(records);
+            failures = workflowRepository.bulkInsert(drafts);
+        } catch (Exception e) {
+            System.err.println("Bulk clone write failed for " + pending.size() + " bookings: " + e.getMessage());
+            pending.forEach(item -> job.incrementFailed());
+            releaseClaims(records);
+            return;
+        }
+        Map<Integer, BulkWriteFailure> failed = new HashMap<>();
+        for (BulkWriteFailure failure : failures) {
+            failed.put(failure.getIndex(), failure);
+        }
+
+        List<PendingClone> landed = new ArrayList<>(pending.size());
+        List<AdvisoryImpactRecord> cloned = new ArrayList<>(pending.size());
+        List<AdvisoryImpactRecord> rejected = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i++) {
+            PendingClone item = pending.get(i);
+            BulkWriteFailure failure = failed.get(i);
+            if (failure != null && !failure.isDuplicateKey()) {
+                System.err.println("Clone insert failed for booking " + item.booking.getId() + " (code "
+                        + failure.getCode() + "): " + failure.getMessage());
+                job.incrementFailed();
+                rejected.add(item.record);
+                continue;
+            }
+            if (failure == null) {
+                eventService.publishCreated(item.clone);
+            }
+            job.incrementCloned();
+            item.record.setStage(AdvisoryImpactRecord.Stage.CLONED);
+            item.record.setUpdatedAt(Instant.now());
+            landed.add(item);
+            cloned.add(item.record);
+        }
+        try {
+            recordRepository.bulkSave(cloned);
+        } catch (Exception e) {
+            // Still SCRIPTED in the store; a re-run re-inserts the same ids and gets duplicate keys
+            System.err.println("Failed to record cloned bookings: " + e.getMessage());
+        }
+        releaseClaims(rejected);
+
+        for (PendingClone item : landed) {
+            notifyAndRecord(item.booking, advisory, item.record, job, deliveries);
+        }
+    }
+
+    /**
+     * Queues the customer's email and records NOTIFIED only once it was sent. An
+     * email that is given up leaves the booking CLONED with its claim released, so
+     * a re-run sends it again.
+     */
+    private void notifyAndRecord(BookingWorkflow booking, Advisory advisory, AdvisoryImpactRecord record,
+            AdvisoryImpactJob job, Deliveries deliveries) {
+        CompletableFuture<Void> delivery;
+        try {
+            delivery = notifyCustomer(booking, advisory, record);
+        } catch (Exception e) {
+            delivery = CompletableFuture.failedFuture(e);
+        }
+        deliveries.add(delivery.handle((sent, error) -> {
+            if (error != null) {
+                System.err.println("Advisory email failed for booking " + booking.getId() + ": " + error.getMessage());
+                job.incrementFailed();
+                releaseClaims(List.of(record));
+                return null;
+            }
+            record.setStage(AdvisoryImpactRecord.Stage.NOTIFIED);
+            job.incrementNotified();
+            try {
+                saveRecord(record);
+            } catch (Exception e) {
+                // Worst case a re-run sends this email again
+                System.err.println("Failed to record notified booking " + booking.getId() + ": " + e.getMessage());
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Drops this run's claim on bookings that failed, at whatever stage they reached,
+     * so a retry resumes them at once instead of skipping them until the lease ends.
+     */
+    private void releaseClaims(List<AdvisoryImpactRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (AdvisoryImpactRecord record : records) {
+            record.setClaimedUntil(null);
+            record.setUpdatedAt(now);
+        }
+        try {
+            recordRepository.bulkSave(records);
+        } catch (Exception e) {
+            // The claims lapse with their lease instead
+            System.err.println("Failed to release " + records.size() + " advisory claims: " + e.getMessage());
+        }
+    }
+
+    private void scriptBooking(BookingWorkflow booking, Advisory advisory, AdvisoryImpactRecord record, String batchScript) {
+        // Generate Agent Script (expecting JSON now), unless the batch call already covered this booking
+        String llmResponse = batchScript != null && !batchScript.isBlank()
+                ? batchScript : advisoryService.generateAgentAdvisoryScript(booking, advisory);
+        if (llmResponse == null || llmResponse.isBlank()) {
+            // Breaker open, no API key or rate limit wait used up: leave the booking unscripted for a re-run
+            throw new IllegalStateException("No advisory script generated for booking " + booking.getId());
+        }
+        String agentScript = "";
+        String estimatedCost = "Unknown";
+        String estimatedTimeDelay = "Unknown";
+
+        try {
+            String cleaned = llmResponse.replace("```json", "").replace("```", "").trim();
+            com.fasterxml.jackson.databind.JsonNode root = objectMapper.readTree(cleaned);
+            agentScript = root.has("script") ? root.get("script").asText() : llmResponse;
+            estimatedCost = root.has("estimatedCost") ? root.get("estimatedCost").asText() : "Unknown";
+            estimatedTimeDelay = root.has("estimatedTimeDelay") ? root.get("estimatedTimeDelay").asText() : "Unknown";
+        } catch (Exception e) {
+            System.err.println("Failed to parse Advisory JSON: " + e.getMessage());
+            agentScript = llmResponse; // Fallback
+        }
+
+        // The claimed record keeps its lease; persisted with the clone write, so losing it to a crash only costs the LLM call
+        record.setStage(AdvisoryImpactRecord.Stage.SCRIPTED);
+        record.setAgentScript(agentScript);
+        record.setEstimatedCost(estimatedCost);
+        record.setEstimatedTimeDelay(estimatedTimeDelay);
+    }
+
+    private WorkflowStep guidanceStep(Advisory advisory, AdvisoryImpactRecord record) {
+        WorkflowStep guidanceStep = new WorkflowStep();
+        guidanceStep.setId("advisory-guidance-" + System.nanoTime());
+        guidanceStep.setName("Advisory Impact Review");
+        guidanceStep.setDescription("Review new advisory execution with customer. Estimated Cost: " + record.getEstimatedCost()
+                + ", Delay: " + record.getEstimatedTimeDelay());
+        guidanceStep.setStatus(WorkflowStep.StepStatus.PENDING);
+        guidanceStep.setCompleted(false);
+
+        HashMap<String, Object> metadata = new HashMap<>();
+        metadata.put("advisoryId", advisory.getId());
+        metadata.put("agentScript", record.getAgentScript());
+        metadata.put("estimatedCost", record.getEstimatedCost());
+        metadata.put("estimatedTimeDelay", record.getEstimatedTimeDelay());
+        metadata.put("isAdvisoryTask", true);
+        guidanceStep.setMetadata(metadata);
+        return guidanceStep;
+    }
+
+    private CompletableFuture<Void> notifyCustomer(BookingWorkflow booking, Advisory advisory, AdvisoryImpactRecord record) {
+        String emailBody = "Dear " + booking.getCustomerName() + ",\n\n"
+                + "An important travel advisory has been issued that affects your trip.\n"
+                + "Advisory: " + advisory.getDescription() + "\n\n"
+                + "Impact Analysis:\n"
+                + "Estimated Cost Impact: " + record.getEstimatedCost() + "\n"
+                + "Estimated Delay: " + record.getEstimatedTimeDelay() + "\n\n"
+                + "Our agent will be in touch shortly to discuss options.\n\n"
+                + "Sincerely,\nTravel App Team";
+
+        String recipient = booking.getCustomerEmail() != null && !booking.getCustomerEmail().isEmpty() ? booking.getCustomerEmail() : "customer@example.com";
+        return notificationService.sendEmail(recipient, "Travel Advisory Alert: " + advisory.getSourceCountry() + " to " + advisory.getTargetCountry(), emailBody);
+    }
+
+    private void saveRecord(AdvisoryImpactRecord record) {
+        record.setUpdatedAt(Instant.now());
+        recordRepository.save(record);
+    }
+
+    private static final class PendingClone {
+        final BookingWorkflow booking;
+        final AdvisoryImpactRecord record;
+        final BookingWorkflow clone;
+
+        PendingClone(BookingWorkflow booking, AdvisoryImpactRecord record, BookingWorkflow clone) {
+            this.booking = booking;
+            this.record = record;
+            this.clone = clone;
+        }
+    }
+
+    /**
+     * Emails one run has queued, each already wired to record its outcome.
+     */
+    private static final class Deliveries {
+        private final List<CompletableFuture<?>> pending = Collections.synchronizedList(new ArrayList<>());
+
+        void add(CompletableFuture<?> delivery) {
+            pending.add(delivery);
+        }
+
+        void await(java.time.Duration timeout) throws InterruptedException {
+            CompletableFuture<?>[] all;
+            synchronized (pending) {
+                all = pending.toArray(new CompletableFuture<?>[0]);
+            }
+            try {
+                CompletableFuture.allOf(all).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Their bookings stay CLONED and are picked up by a re-run once the claim lapses
+                System.err.println("Gave up waiting on advisory emails after " + timeout);
+            } catch (ExecutionException e) {
+                // Each delivery handles its own failure
+            }
+        }
+    }
+
+    /**
+     * Shared by the fan-out workers of one run; whoever fills it writes it.
+     */
+    private static final class CloneBuffer {
+        private final int batchSize;
+        private List<PendingClone> items = new ArrayList<>();
+
+        CloneBuffer(int batchSize) {
+            this.batchSize = Math.max(1, batchSize);
+        }
+
+        synchronized List<PendingClone> add(PendingClone item) {
+            items.add(item);
+            return items.size() >= batchSize ? drain() : null;
+        }
+
+        synchronized List<PendingClone> drain() {
+            List<PendingClone> drained = items;
+            items = new ArrayList<>();
+            return drained;
         }
     }
 
@@ -108,16 +589,14 @@ public class AdvisoryImpactService {
                 + "Classify as POSITIVE (accepts changes/proceeds) or NEGATIVE (cancels/rejects). "
                 + "Return ONLY the word POSITIVE or NEGATIVE.";
 
-        String sentiment = llmService.fetchLlmResponse(prompt).trim().toUpperCase();
+        String llmSentiment = llmService.fetchLlmResponse(prompt, "handleCustomerResponse", customerResponseCacheTtl);
+        // LLM unavailable (no key, circuit open, retries exhausted): fall back to keywords
+        String sentiment = llmSentiment != null ? llmSentiment.trim().toUpperCase() : classifySentimentHeuristically(responseText);
         if (sentiment.contains("POSITIVE")) {
-            if (workflow.getSteps() != null && !workflow.getSteps().isEmpty()) {
-                WorkflowStep firstStep = workflow.getSteps().get(0);
-                if (Boolean.TRUE.equals(firstStep.getMetadata().get("isAdvisoryTask"))) {
-                    firstStep.setCompleted(true);
-                    firstStep.setStatus(WorkflowStep.StepStatus.COMPLETED);
-                }
+            BookingWorkflow saved = workflowWriter.applyAndSave(workflow, AdvisoryImpactService::completeAdvisoryTask);
+            if (saved != null) {
+                eventService.publishUpdated(saved);
             }
-            workflowRepository.save(workflow);
 
             String recipient = workflow.getCustomerEmail() != null && !workflow.getCustomerEmail().isEmpty() ? workflow.getCustomerEmail() : "customer@example.com";
 
@@ -131,4 +610,30 @@ public class AdvisoryImpactService {
             return "Negative response processed. Agent notified.";
         }
     }
+
+    private static boolean completeAdvisoryTask(BookingWorkflow workflow) {
+        if (workflow.getSteps() == null || workflow.getSteps().isEmpty()) {
+            return false;
+        }
+        WorkflowStep firstStep = workflow.getSteps().get(0);
+        if (!Boolean.TRUE.equals(firstStep.getMetadata().get("isAdvisoryTask")) || firstStep.isCompleted()) {
+            return false;
+        }
+        firstStep.setCompleted(true);
+        firstStep.setStatus(WorkflowStep.StepStatus.COMPLETED);
+        return true;
+    }
+
+    private static final Pattern NEGATIVE_REPLY = Pattern.compile(
+            "\\b(no|not|cancel\\w*|reject\\w*|refund\\w*|decline\\w*|don't|won't)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern POSITIVE_REPLY = Pattern.compile(
+            "\\b(yes|ok|okay|sure|accept\\w*|proceed\\w*|go ahead|agree\\w*|fine|sounds good)\\b", Pattern.CASE_INSENSITIVE);
+
+    // Negative wins ties: a missed acceptance costs an agent call, a missed cancellation a wrong booking
+    static String classifySentimentHeuristically(String responseText) {
+        if (NEGATIVE_REPLY.matcher(responseText).find()) {
+            return "NEGATIVE";
+        }
+        return POSITIVE_REPLY.matcher(responseText).find() ? "POSITIVE" : "NEGATIVE";
+    }
 }
@@ -0,0 +1,77 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.model.AdvisoryImpactJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs advisory impact processing in the background and tracks its progress.
+ */
+@Service
+public class AdvisoryJobService {
+
+    @Autowired
+    private AdvisoryImpactService impactService;
+
+    @Autowired
+    @Qualifier("advisoryJobExecutor")
+    private TaskExecutor jobExecutor;
+
+    @Value("${app.advisory.jobs.retention:PT1H}")
+    private Duration retention;
+
+    private final Map<String, AdvisoryImpactJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Starts an impact run, or returns the one already in progress for this advisory.
+     * Runs are idempotent per booking, so re-submitting later resumes and skips done work.
+     */
+    public synchronized AdvisoryImpactJob submit(Advisory advisory) {
+        for (AdvisoryImpactJob existing : jobs.values()) {
+            if (!existing.isDone() && existing.getAdvisoryId() != null && existing.getAdvisoryId().equals(advisory.getId())) {
+                return existing;
+            }
+        }
+        AdvisoryImpactJob job = new AdvisoryImpactJob(UUID.randomUUID().toString(), advisory.getId());
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(() -> run(job, advisory));
+        } catch (RejectedExecutionException e) {
+            job.markFailed("Job queue is full; retry later");
+        }
+        return job;
+    }
+
+    public AdvisoryImpactJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void run(AdvisoryImpactJob job, Advisory advisory) {
+        job.markRunning();
+        try {
+            impactService.processNewAdvisory(advisory, job);
+            job.markCompleted();
+        } catch (Exception e) {
+            System.err.println("Advisory impact job " + job.getId() + " failed: " + e.getMessage());
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.advisory.jobs.eviction-interval-ms:300000}")
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isDone() && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,194 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.repository.AdvisoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory view of the advisories collection, indexed by source and target
+ * country. Readers see an immutable snapshot through a volatile reference and
+ * never lock; writers rebuild the snapshot copy-on-write.
+ */
+@Service
+public class AdvisoryRegistry {
+
+    @Autowired
+    private AdvisoryRepository repository;
+
+    @Autowired
+    private CountryResolver countryResolver;
+
+    private volatile Snapshot snapshot;
+
+    public List<Advisory> getAll() {
+        return current().all;
+    }
+
+    public List<Advisory> findBySourceCountry(String country) {
+        return current().bySource.getOrDefault(countryResolver.resolve(country), Collections.emptyList());
+    }
+
+    public List<Advisory> findByTargetCountry(String country) {
+        return current().byTarget.getOrDefault(countryResolver.resolve(country), Collections.emptyList());
+    }
+
+    /**
+     * Advisories naming the country on either side, without duplicates. Accepts
+     * anything {@link CountryResolver} does: a country, a city, an airport or an ISO key.
+     */
+    public List<Advisory> findByCountry(String country) {
+        Set<Advisory> matches = new LinkedHashSet<>(findBySourceCountry(country));
+        matches.addAll(findByTargetCountry(country));
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Advisories naming any of the given country keys (as stored on workflows and
+     * produced by {@link CountryResolver}) on either side, without duplicates.
+     */
+    public List<Advisory> findByCountryKeys(Collection<String> keys) {
+        Snapshot s = current();
+        Set<Advisory> matches = new LinkedHashSet<>();
+        for (String key : keys) {
+            matches.addAll(s.bySource.getOrDefault(key, Collections.emptyList()));
+            matches.addAll(s.byTarget.getOrDefault(key, Collections.emptyList()));
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Advisories with a side the gazetteer could not place; only the LLM can tell
+     * which itineraries they concern.
+     */
+    public List<Advisory> getUnplaced() {
+        return current().unplaced;
+    }
+
+    /**
+     * An existing advisory with the same countries, severity and description, if any;
+     * lets a retried or duplicate POST reuse it instead of creating a second one.
+     */
+    public Advisory findEquivalent(Advisory advisory) {
+        for (Advisory existing : findBySourceCountry(advisory.getSourceCountry())) {
+            if (sameText(existing.getTargetCountry(), advisory.getTargetCountry())
+                    && sameText(existing.getSeverity(), advisory.getSeverity())
+                    && sameText(existing.getDescription(), advisory.getDescription())) {
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameText(String a, String b) {
+        return a == null ? b == null : b != null && a.trim().equalsIgnoreCase(b.trim());
+    }
+
+    /**
+     * Order-independent hash of the advisory set, stable until the next change.
+     */
+    public String getFingerprint() {
+        return current().fingerprint;
+    }
+
+    public synchronized void register(Advisory advisory) {
+        List<Advisory> next = new ArrayList<>(current().all);
+        next.removeIf(existing -> existing.getId() != null && existing.getId().equals(advisory.getId()));
+        next.add(advisory);
+        snapshot = new Snapshot(next, countryResolver);
+    }
+
+    public synchronized void remove(String advisoryId) {
+        List<Advisory> next = new ArrayList<>(current().all);
+        if (next.removeIf(existing -> advisoryId.equals(existing.getId()))) {
+            snapshot = new Snapshot(next, countryResolver);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (Exception e) {
+            // Stay lazy; the first read retries the load
+            System.err.println("Failed to preload advisories: " + e.getMessage());
+        }
+    }
+
+    public synchronized void reload() {
+        snapshot = new Snapshot(repository.findAll(), countryResolver);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    private static final class Snapshot {
+        final List<Advisory> all;
+        final Map<String, List<Advisory>> bySource;
+        final Map<String, List<Advisory>> byTarget;
+        final List<Advisory> unplaced;
+        final String fingerprint;
+
+        Snapshot(List<Advisory> advisories, CountryResolver resolver) {
+            this.all = Collections.unmodifiableList(new ArrayList<>(advisories));
+            this.bySource = index(all, resolver, true);
+            this.byTarget = index(all, resolver, false);
+            this.unplaced = unplaced(all, resolver);
+            this.fingerprint = fingerprint(all);
+        }
+
+        private static Map<String, List<Advisory>> index(List<Advisory> advisories, CountryResolver resolver, boolean source) {
+            Map<String, List<Advisory>> index = new HashMap<>();
+            for (Advisory adv : advisories) {
+                String key = resolver.resolve(source ? adv.getSourceCountry() : adv.getTargetCountry());
+                if (key != null) {
+                    index.computeIfAbsent(key, k -> new ArrayList<>()).add(adv);
+                }
+            }
+            index.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            return Collections.unmodifiableMap(index);
+        }
+
+        private static List<Advisory> unplaced(List<Advisory> advisories, CountryResolver resolver) {
+            List<Advisory> unplaced = new ArrayList<>();
+            for (Advisory adv : advisories) {
+                if (!CountryResolver.isIsoKey(resolver.resolve(adv.getSourceCountry()))
+                        || !CountryResolver.isIsoKey(resolver.resolve(adv.getTargetCountry()))) {
+                    unplaced.add(adv);
+                }
+            }
+            return Collections.unmodifiableList(unplaced);
+        }
+
+        private static String fingerprint(List<Advisory> advisories) {
+            List<String> parts = new ArrayList<>();
+            for (Advisory adv : advisories) {
+                parts.add(adv.getId() + '\u0001' + adv.getSourceCountry() + '\u0001' + adv.getTargetCountry()
+                        + '\u0001' + adv.getSeverity() + '\u0001' + adv.getDescription());
+            }
+            parts.sort(null);
+            return ValidationCacheService.sha256(String.join("\u0002", parts));
+        }
+    }
+}
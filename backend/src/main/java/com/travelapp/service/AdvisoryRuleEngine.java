@@ -0,0 +1,227 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.model.WorkflowStep;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Settles compliance for steps whose places the gazetteer fully resolves, so
+ * validateWorkflow only sends the genuinely ambiguous steps to the LLM.
+ * <ul>
+ * <li>CLEAN: no advisory country is mentioned and every place-like word is resolved.</li>
+ * <li>VIOLATING: a direct transport leg from an advisory's source to its target country.</li>
+ * <li>AMBIGUOUS: anything else (unknown places, stays in an advisory country, return legs, via routes).</li>
+ * </ul>
+ */
+@Service
+public class AdvisoryRuleEngine {
+
+    public enum Outcome { CLEAN, VIOLATING, AMBIGUOUS }
+
+    private static final Pattern TRANSPORT = Pattern.compile(
+            "\\b(flight|fly|flying|airline|train|rail|bus|coach|ferry|cruise|drive|road trip)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CONNECTION = Pattern.compile("\\b(via|connecting|layover|stopover|transit)\\b",
+            Pattern.CASE_INSENSITIVE);
+    // The word after a place preposition (and an optional article) is taken to name a place, whatever its case
+    private static final Pattern PLACE_SLOT = Pattern.compile(
+            "\\b(?i:to|from|in|via|at|into|through)\\s+(?:(?i:the|a|an|my|our|your|their)\\s+)?(\\p{L}[\\p{L}.'-]*)");
+    private static final Pattern STAY = Pattern.compile(
+            "\\b(hotel|hostel|motel|resort|lodge|guesthouse|airbnb|apartment|villa|stay|staying|accommodation)\\b",
+            Pattern.CASE_INSENSITIVE);
+    // A capitalized word anywhere may be a place name, with or without a preposition before it
+    private static final Pattern CAPITALIZED = Pattern.compile("(?<![\\p{L}\\d])\\p{Lu}\\p{L}*(?![\\p{L}\\d])");
+    // Capitalized words common in step names and descriptions that never name a place
+    private static final Set<String> STEP_WORDS = Set.of(
+            "a", "an", "the", "and", "or", "of", "for", "with", "on", "by", "to", "from", "in", "at", "my", "our",
+            "your", "their", "then", "i",
+            "flight", "flights", "fly", "airline", "train", "rail", "bus", "coach", "ferry", "cruise", "drive", "road",
+            "trip", "taxi", "car", "rental", "transfer", "airport", "station", "pickup", "departure", "arrival",
+            "return", "outbound", "inbound", "connecting", "layover", "stopover", "transit", "direct", "leg",
+            "hotel", "hostel", "motel", "resort", "lodge", "guesthouse", "airbnb", "apartment", "villa", "stay",
+            "accommodation", "room", "night", "nights", "check", "booking", "book", "reservation", "reserve",
+            "selection", "select", "payment", "pay", "complete", "confirm", "confirmation", "arrange", "review",
+            "finalize", "finalise", "send", "plan", "prepare", "collect", "buy", "visit", "call", "email", "contact",
+            "schedule", "request", "apply", "cancel", "change", "update",
+            "ticket", "tickets", "seat", "seats", "baggage", "luggage", "upgrade", "class", "economy", "business",
+            "premium", "first", "visa", "passport", "insurance", "documents", "tour", "tours", "sightseeing",
+            "museum", "excursion", "safari", "package", "honeymoon", "itinerary", "dinner", "lunch", "breakfast",
+            "advisory", "impact", "customer", "agent", "guide", "day", "days", "week", "weekend",
+            "monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday",
+            "january", "february", "march", "april", "may", "june", "july", "august", "september", "october",
+            "november", "december");
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    private final AtomicLong clean = new AtomicLong();
+    private final AtomicLong violating = new AtomicLong();
+    private final AtomicLong ambiguous = new AtomicLong();
+
+    public static final class Verdict {
+        private final Outcome outcome;
+        private final String warning;
+        private final String alternative;
+
+        Verdict(Outcome outcome, String warning, String alternative) {
+            this.outcome = outcome;
+            this.warning = warning;
+            this.alternative = alternative;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public String getWarning() {
+            return warning;
+        }
+
+        public String getAlternative() {
+            return alternative;
+        }
+    }
+
+    private static final Verdict CLEAN = new Verdict(Outcome.CLEAN, null, null);
+    private static final Verdict AMBIGUOUS = new Verdict(Outcome.AMBIGUOUS, null, null);
+
+    /**
+     * Verdict per step ID, in step order.
+     */
+    public Map<String, Verdict> evaluate(List<WorkflowStep> steps, List<Advisory> advisories) {
+        // Resolve each advisory once; one we cannot place makes every step a question for the LLM
+        List<String[]> pairs = new ArrayList<>(advisories.size());
+        List<Advisory> resolved = new ArrayList<>(advisories.size());
+        Set<String> advisoryCountries = new HashSet<>();
+        boolean allResolved = true;
+        for (Advisory adv : advisories) {
+            String source = gazetteer.resolveCountry(adv.getSourceCountry());
+            String target = gazetteer.resolveCountry(adv.getTargetCountry());
+            if (source == null || target == null) {
+                allResolved = false;
+                continue;
+            }
+            pairs.add(new String[] { source, target });
+            resolved.add(adv);
+            advisoryCountries.add(source);
+            advisoryCountries.add(target);
+        }
+
+        Map<String, Verdict> verdicts = new LinkedHashMap<>();
+        for (WorkflowStep step : steps) {
+            Verdict verdict = allResolved ? evaluate(step, resolved, pairs, advisoryCountries) : AMBIGUOUS;
+            verdicts.put(step.getId(), verdict);
+            count(verdict.getOutcome());
+        }
+        return verdicts;
+    }
+
+    private Verdict evaluate(WorkflowStep step, List<Advisory> advisories, List<String[]> pairs, Set<String> advisoryCountries) {
+        String text = Objects.toString(step.getName(), "") + " " + Objects.toString(step.getDescription(), "");
+        List<String> countries = gazetteer.countriesInOrder(text);
+
+        boolean touchesAdvisory = false;
+        for (String country : countries) {
+            if (advisoryCountries.contains(country)) {
+                touchesAdvisory = true;
+                break;
+            }
+        }
+        if (!touchesAdvisory) {
+            return hasUnresolvedPlace(text) ? AMBIGUOUS : CLEAN;
+        }
+        // Multi-leg steps ("Delhi to Paris, then Paris to Shanghai") are not a single leg we can judge
+        if (countries.size() > 2) {
+            return AMBIGUOUS;
+        }
+
+        // Connections change the picture (a hub may be the alternative itself), so leave them to the LLM
+        if (TRANSPORT.matcher(text).find() && !CONNECTION.matcher(text).find()) {
+            for (int i = 0; i < pairs.size(); i++) {
+                String[] pair = pairs.get(i);
+                // Direct leg only: the target must be the very next country after the source
+                int from = countries.indexOf(pair[0]);
+                if (from >= 0 && from + 1 < countries.size() && countries.get(from + 1).equals(pair[1])) {
+                    return violation(advisories.get(i));
+                }
+            }
+        }
+        return AMBIGUOUS;
+    }
+
+    private static Verdict violation(Advisory adv) {
+        String warning = "[" + adv.getSeverity() + "] Travel advisory " + adv.getSourceCountry() + " to "
+                + adv.getTargetCountry() + ": " + adv.getDescription();
+        String alternative = "Reroute through a third country not covered by an active advisory, "
+                + "or move the travel date once the advisory is lifted.";
+        return new Verdict(Outcome.VIOLATING, warning, alternative);
+    }
+
+    /**
+     * True when the text may name a place the gazetteer does not know: a word after
+     * a place preposition or a capitalized word outside the step vocabulary that no
+     * match covers, or a transport or stay step naming no place at all (its leg is
+     * then implied by the workflow's source and destination).
+     */
+    public boolean hasUnresolvedPlace(String text) {
+        BitSet covered = new BitSet(text.length());
+        BitSet places = new BitSet(text.length());
+        BitSet brands = new BitSet(text.length());
+        gazetteer.scan(text, (iso, start, end, isCountry) -> {
+            covered.set(start, end);
+            if (iso != null) {
+                places.set(start);
+            } else {
+                brands.set(start, end);
+            }
+        });
+        // A brand only masks the names inside it ("China Airlines")
+        places.andNot(brands);
+        if (places.isEmpty() && (TRANSPORT.matcher(text).find() || STAY.matcher(text).find())) {
+            return true;
+        }
+        Matcher slot = PLACE_SLOT.matcher(text);
+        while (slot.find()) {
+            if (!covered.get(slot.start(1))) {
+                return true;
+            }
+        }
+        Matcher word = CAPITALIZED.matcher(text);
+        while (word.find()) {
+            if (!covered.get(word.start()) && !STEP_WORDS.contains(word.group().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void count(Outcome outcome) {
+        switch (outcome) {
+            case CLEAN -> clean.incrementAndGet();
+            case VIOLATING -> violating.incrementAndGet();
+            default -> ambiguous.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("clean", clean.get());
+        stats.put("violating", violating.get());
+        stats.put("ambiguous", ambiguous.get());
+        return stats;
+    }
+}
@@ -5,17 +5,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.travelapp.model.Advisory;
 import com.travelapp.model.BookingWorkflow;
 import com.travelapp.model.WorkflowStep;
-import com.travelapp.repository.AdvisoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AdvisoryService {
 
     @Autowired
-    private AdvisoryRepository repository;
+    private AdvisoryRegistry advisoryRegistry;
 
     @Autowired
     private LlmService llmService;
@@ -23,75 +29,108 @@ public class AdvisoryService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ValidationCacheService validationCache;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Autowired
+    private AdvisoryRuleEngine ruleEngine;
+
+    @Autowired
+    private AdvisoryVersionService advisoryVersion;
+
+    @Autowired
+    private CompliancePromptBuilder promptBuilder;
+
+    @Value("${ai.cache.ttl.advisory-script:6h}")
+    private Duration advisoryScriptCacheTtl;
+
+    /**
+     * True when the workflow was last validated against the current advisory
+     * epoch and its steps have not changed since, i.e. validateWorkflow would be a no-op.
+     */
+    public boolean isValidationCurrent(BookingWorkflow workflow) {
+        return Long.valueOf(advisoryVersion.current()).equals(workflow.getValidatedAdvisoryVersion())
+                && validationCache.hashSteps(workflow.getSteps()).equals(workflow.getValidatedStepsHash());
+    }
+
+    /**
+     * Applies advisory warnings to the steps and, once the check completed, stamps
+     * the advisory epoch and step hash it ran against. Returns true if the workflow
+     * changed and needs saving.
+     */
     public boolean validateWorkflow(BookingWorkflow workflow) {
-        List<Advisory> advisories = repository.findAll();
+        // Epoch first: an advisory change landing mid-check leaves the workflow stale rather than wrongly current
+        long version = advisoryVersion.current();
+        String stepsHash = validationCache.hashSteps(workflow.getSteps());
+        List<Advisory> advisories = advisoryRegistry.getAll();
         // If no advisories or steps, minimal check
         if (advisories.isEmpty() || workflow.getSteps() == null) {
-            return false;
+            return markValidated(workflow, version, stepsHash);
         }
 
-        // Optimized: Only check if steps don't have warnings yet, or maybe re-check
-        // every time?
-        // For efficiency in this demo, we'll re-check every time GET is called.
-        // In prod, cache the result or check hash of steps.
-        StringBuilder prompt = new StringBuilder();
-        prompt.append(
-                "You are a Travel Compliance Officer. Check the following itinerary steps against active Travel Advisories.\n\n");
+        // Rules settle steps the gazetteer fully resolves; only the rest need the LLM
+        Map<String, AdvisoryRuleEngine.Verdict> verdicts = ruleEngine.evaluate(workflow.getSteps(), advisories);
+        List<WorkflowStep> ambiguousSteps = new ArrayList<>();
+        boolean updated = false;
+        for (WorkflowStep step : workflow.getSteps()) {
+            AdvisoryRuleEngine.Verdict verdict = verdicts.get(step.getId());
+            if (verdict.getOutcome() == AdvisoryRuleEngine.Outcome.VIOLATING) {
+                updated |= applyViolation(step, verdict.getWarning(), verdict.getAlternative());
+            } else if (verdict.getOutcome() == AdvisoryRuleEngine.Outcome.AMBIGUOUS) {
+                ambiguousSteps.add(step);
+            }
+        }
+        if (ambiguousSteps.isEmpty()) {
+            return markValidated(workflow, version, stepsHash) | updated;
+        }
 
-        prompt.append("ACTIVE ADVISORIES:\n");
-        for (Advisory adv : advisories) {
-            prompt.append("- [").append(adv.getSeverity()).append("] From ").append(adv.getSourceCountry())
-                    .append(" to ").append(adv.getTargetCountry()).append(": ").append(adv.getDescription())
-                    .append("\n");
+        // Empty when no advisory concerns any of the workflow's countries
+        List<String> prompts = promptBuilder.build(workflow, ambiguousSteps);
+        Set<String> warned = new HashSet<>();
+        for (String prompt : prompts) {
+            // Same steps with the same advisories selected always yield the same verdict
+            String cacheKey = validationCache.computeKey(stepsHash, ValidationCacheService.sha256(prompt));
+            String jsonResponse = validationCache.get(cacheKey);
+            if (jsonResponse == null) {
+                // Not through the response cache: validationCache already keys this by steps and prompt
+                jsonResponse = llmService.fetchLlmResponse(prompt, "validateWorkflow", null);
+                validationCache.put(cacheKey, jsonResponse);
+            }
+            if (jsonResponse == null) {
+                // LLM unavailable: leave the workflow stale so the next read retries every part
+                return updated;
+            }
+            // Prompts come most severe first, so a step keeps the first warning it gets
+            updated |= applyViolations(ambiguousSteps, jsonResponse, warned);
         }
+        return markValidated(workflow, version, stepsHash) | updated;
+    }
 
-        prompt.append("\nITINERARY STEPS:\n");
-        for (WorkflowStep step : workflow.getSteps()) {
-            prompt.append("- Step ID: ").append(step.getId()).append(" | Name: ").append(step.getName())
-                    .append(" | Desc: ").append(step.getDescription()).append("\n");
-        }
-
-        prompt.append("INSTRUCTIONS:\n");
-        prompt.append("1. Analyze EVERY step carefully. Identify ANY step that violates an advisory (e.g. flying from banned source to target).\n");
-        prompt.append("2. Use geographic knowledge (e.g. Delhi is in India, Shanghai is in China). Map cities to countries explicitly.\n");
-        prompt.append("3. For round trips, ensure BOTH outbound and return legs are checked independently.\n");
-        prompt.append("4. For EACH violation, provide a 'warning' message and an 'alternative' route.\n");
-        prompt.append(
-                "5. Return a JSON object mapping Step IDs to violations: { \"step-id\": { \"warning\": \"...\", \"alternative\": \"...\" }, \"step-id-2\": { ... } }.\n");
-        prompt.append("6. If a step has NO violation, do NOT include it in the JSON.\n");
-        prompt.append("7. If NO violations in entire workflow, return {}.\n");
-        prompt.append("Return ONLY valid JSON.");
-
-        String jsonResponse = llmService.fetchLlmResponse(prompt.toString());
-        if (jsonResponse == null) {
+    private static boolean markValidated(BookingWorkflow workflow, long version, String stepsHash) {
+        if (Long.valueOf(version).equals(workflow.getValidatedAdvisoryVersion())
+                && stepsHash.equals(workflow.getValidatedStepsHash())) {
             return false;
         }
+        workflow.setValidatedAdvisoryVersion(version);
+        workflow.setValidatedStepsHash(stepsHash);
+        return true;
+    }
 
+    private boolean applyViolations(List<WorkflowStep> steps, String jsonResponse, Set<String> warned) {
         boolean updated = false;
         try {
             String cleaned = jsonResponse.replace("```json", "").replace("```", "").trim();
             JsonNode root = objectMapper.readTree(cleaned);
 
-            for (WorkflowStep step : workflow.getSteps()) {
-                if (root.has(step.getId())) {
+            for (WorkflowStep step : steps) {
+                if (root.has(step.getId()) && warned.add(step.getId())) {
                     JsonNode violation = root.get(step.getId());
-                    if (violation.has("warning")) {
-                        // Only update if changed to avoid unnecessary saves
-                        if (!violation.get("warning").asText().equals(step.getWarning())) {
-                            step.setWarning(violation.get("warning").asText());
-                            updated = true;
-                        }
-                    }
-                    if (violation.has("alternative")) {
-                        if (!violation.get("alternative").asText().equals(step.getAlternative())) {
-                            step.setAlternative(violation.get("alternative").asText());
-                            updated = true;
-                        }
-                    }
-                } else {
-                    // Clear warnings if issue resolved (or transient check)
-                    // step.setWarning(null);
-                    // step.setAlternative(null);
+                    updated |= applyViolation(step,
+                            violation.has("warning") ? violation.get("warning").asText() : null,
+                            violation.has("alternative") ? violation.get("alternative").asText() : null);
                 }
             }
         } catch (Exception e) {
@@ -100,27 +139,58 @@ public class AdvisoryService {
         return updated;
     }
 
+    // Only update if changed to avoid unnecessary saves
+    private static boolean applyViolation(WorkflowStep step, String warning, String alternative) {
+        boolean updated = false;
+        if (warning != null && !warning.equals(step.getWarning())) {
+            step.setWarning(warning);
+            updated = true;
+        }
+        if (alternative != null && !alternative.equals(step.getAlternative())) {
+            step.setAlternative(alternative);
+            updated = true;
+        }
+        return updated;
+    }
+
     public boolean checkAdvisoryImpact(BookingWorkflow workflow, Advisory advisory) {
-        // Simple logic: Check if Source or Target country matches the advisory
-        // In a real app, this would be more complex (cities mapping to countries, connection points, etc.)
-        // Re-using the logic: if we can match countries, it's impacted.
+        // Cities, airports and country names all resolve to ISO codes via the gazetteer,
+        // so "Delhi" matches an advisory on "India" without asking the LLM
+        String sourceIso = gazetteer.resolveCountry(workflow.getSource());
+        String destinationIso = gazetteer.resolveCountry(workflow.getDestination());
+        String advisorySourceIso = gazetteer.resolveCountry(advisory.getSourceCountry());
+        String advisoryTargetIso = gazetteer.resolveCountry(advisory.getTargetCountry());
 
-        boolean sourceMatch = isLocationInCountry(workflow.getSource(), advisory.getSourceCountry())
-                || isLocationInCountry(workflow.getSource(), advisory.getTargetCountry());
+        boolean sourceMatch = isLocationInCountry(workflow.getSource(), sourceIso, advisory.getSourceCountry(), advisorySourceIso)
+                || isLocationInCountry(workflow.getSource(), sourceIso, advisory.getTargetCountry(), advisoryTargetIso);
 
-        boolean destMatch = isLocationInCountry(workflow.getDestination(), advisory.getSourceCountry())
-                || isLocationInCountry(workflow.getDestination(), advisory.getTargetCountry());
+        boolean destMatch = isLocationInCountry(workflow.getDestination(), destinationIso, advisory.getSourceCountry(), advisorySourceIso)
+                || isLocationInCountry(workflow.getDestination(), destinationIso, advisory.getTargetCountry(), advisoryTargetIso);
 
         return sourceMatch || destMatch;
     }
 
-    private boolean isLocationInCountry(String location, String country) {
+    private boolean isLocationInCountry(String location, String locationIso, String country, String countryIso) {
         if (location == null || country == null) {
             return false;
         }
-        // Basic heuristic for demo: String contains
-        return location.trim().equalsIgnoreCase(country.trim())
-                || location.toLowerCase().contains(country.toLowerCase());
+        if (locationIso != null && countryIso != null) {
+            return locationIso.equals(countryIso);
+        }
+        // Place unknown to the gazetteer: case-insensitive containment, without lower-cased copies
+        return containsIgnoreCase(location, country.trim());
+    }
+
+    private static boolean containsIgnoreCase(String text, String fragment) {
+        if (fragment.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i + fragment.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, fragment, 0, fragment.length())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String generateAgentAdvisoryScript(BookingWorkflow workflow, Advisory advisory) {
@@ -148,6 +218,67 @@ public class AdvisoryService {
 
         prompt.append("Output JSON format: { \"script\": \"...\", \"estimatedCost\": \"$XXX\", \"estimatedTimeDelay\": \"X days/hours\" }");
 
-        return llmService.fetchLlmResponse(prompt.toString());
+        return llmService.fetchLlmResponse(prompt.toString(), "generateAgentAdvisoryScript", advisoryScriptCacheTtl);
+    }
+
+    /**
+     * Drafts agent scripts for several bookings affected by the same advisory in a
+     * single LLM call. Returns per-booking JSON in the same shape as
+     * {@link #generateAgentAdvisoryScript}, keyed by booking ID; bookings the model
+     * left out are simply absent, so callers fall back to the single-booking call.
+     */
+    public Map<String, String> generateAgentAdvisoryScripts(List<BookingWorkflow> workflows, Advisory advisory) {
+        Map<String, String> scripts = new HashMap<>();
+        if (workflows.isEmpty()) {
+            return scripts;
+        }
+
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("You are a Travel Strategy Consultant. A new Travel Advisory has been issued that affects several customer bookings.\n\n");
+
+        prompt.append("ADVISORY DETAILS:\n");
+        prompt.append("- Severity: ").append(advisory.getSeverity()).append("\n");
+        prompt.append("- From: ").append(advisory.getSourceCountry()).append(" To: ").append(advisory.getTargetCountry()).append("\n");
+        prompt.append("- Description: ").append(advisory.getDescription()).append("\n\n");
+
+        prompt.append("BOOKINGS:\n");
+        for (BookingWorkflow workflow : workflows) {
+            prompt.append("- Booking ID: ").append(workflow.getId())
+                    .append(" | Customer: ").append(workflow.getCustomerName())
+                    .append(" | Route: ").append(workflow.getSource()).append(" to ").append(workflow.getDestination());
+            if (workflow.getTravelDate() != null) {
+                prompt.append(" | Travel Date: ").append(workflow.getTravelDate());
+            }
+            prompt.append("\n");
+        }
+
+        prompt.append("\nINSTRUCTIONS:\n");
+        prompt.append("1. For EACH booking, draft a script for the travel agent to read to that customer.\n");
+        prompt.append("2. Explain the implications of the advisory clearly and empathetically.\n");
+        prompt.append("3. Highlight potential costs (e.g. cancellation fees, higher fares for rerouting).\n");
+        prompt.append("4. Suggest date changes if applicable.\n");
+        prompt.append("5. Keep it professional but urgent if severity is HIGH.\n\n");
+
+        prompt.append("Output a JSON array with one object per booking: [ { \"bookingId\": \"...\", \"script\": \"...\", \"estimatedCost\": \"$XXX\", \"estimatedTimeDelay\": \"X days/hours\" } ]. Return ONLY valid JSON.");
+
+        String jsonResponse = llmService.fetchLlmResponse(prompt.toString(), "generateAgentAdvisoryScripts", advisoryScriptCacheTtl);
+        if (jsonResponse == null) {
+            return scripts;
+        }
+
+        try {
+            String cleaned = jsonResponse.replace("```json", "").replace("```", "").trim();
+            JsonNode root = objectMapper.readTree(cleaned);
+            if (root.isArray()) {
+                for (JsonNode entry : root) {
+                    if (entry.has("bookingId") && entry.has("script")) {
+                        scripts.put(entry.get("bookingId").asText(), entry.toString());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to parse batched advisory scripts: " + e.getMessage());
+        }
+        return scripts;
     }
 }
@@ -0,0 +1,94 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Counter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Global advisory epoch. Every advisory create/delete bumps a counter in Mongo;
+ * workflows record the epoch they were last validated against, so a GET only
+ * re-validates when the advisory set (or the steps) changed since.
+ * <p>
+ * {@link #current()} is the epoch this instance's AdvisoryRegistry reflects.
+ * Other replicas pick up a bump on their next poll, reloading the registry first.
+ */
+@Service
+public class AdvisoryVersionService {
+
+    static final String COUNTER_ID = "advisoryVersion";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AdvisoryRegistry advisoryRegistry;
+
+    @Autowired
+    private ValidationCacheService validationCache;
+
+    private volatile Long localVersion;
+
+    public long current() {
+        Long version = localVersion;
+        if (version == null) {
+            synchronized (this) {
+                if (localVersion == null) {
+                    localVersion = readStoredVersion();
+                }
+                version = localVersion;
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Call after the local registry already reflects the change.
+     */
+    public synchronized long bump() {
+        Long previous = localVersion;
+        Counter counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(COUNTER_ID)),
+                new Update().inc("value", 1),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Counter.class);
+        long version = counter.getValue();
+        // A gap means another replica bumped first and this one has not polled yet; advertising the
+        // new epoch without its advisories would make every replica trust an incomplete validation
+        if (previous == null || version > previous + 1) {
+            advisoryRegistry.reload();
+            validationCache.invalidateAll();
+        }
+        localVersion = version;
+        return version;
+    }
+
+    @Scheduled(fixedDelayString = "${app.advisory.version.poll-interval-ms:10000}")
+    public void pollForChanges() {
+        try {
+            long stored = readStoredVersion();
+            synchronized (this) {
+                // The counter only grows; a local bump may have overtaken this read
+                if (localVersion != null && localVersion >= stored) {
+                    return;
+                }
+                // Another replica changed the advisories: reload before advertising the new epoch
+                advisoryRegistry.reload();
+                validationCache.invalidateAll();
+                localVersion = stored;
+            }
+        } catch (Exception e) {
+            System.err.println("Advisory version poll failed: " + e.getMessage());
+        }
+    }
+
+    private long readStoredVersion() {
+        Counter counter = mongoTemplate.findById(COUNTER_ID, Counter.class);
+        return counter != null ? counter.getValue() : 0L;
+    }
+}
@@ -0,0 +1,191 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.travelapp.model.BatchParseResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk intake: parses many itinerary requests concurrently (at most
+ * app.parser.batch.concurrency at a time per batch) and streams one NDJSON
+ * result line per item as soon as it finishes, in completion order. A failed
+ * item gets an error line; the rest of the batch carries on.
+ */
+@Service
+public class BatchParseService {
+
+    @Autowired
+    private WorkflowIntakeService intakeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("parseBatchExecutor")
+    private Executor batchExecutor;
+
+    @Value("${app.parser.batch.concurrency:4}")
+    private int concurrency = 4;
+
+    @Value("${app.parser.batch.max-items:500}")
+    private int maxItems = 500;
+
+    /**
+     * One request of a batch; error is set instead of text when the item was unreadable.
+     */
+    public static final class Item {
+        private final String id;
+        private final String text;
+        private final String error;
+
+        Item(String id, String text, String error) {
+            this.id = id;
+            this.text = text;
+            this.error = error;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Reads a JSON array, or NDJSON when ndjson is set. Each item is either a
+     * string or an object with "text" and an optional "id". A broken NDJSON line
+     * only fails that item; a broken array, or more than max-items items, throws
+     * IllegalArgumentException.
+     */
+    public List<Item> readItems(InputStream body, boolean ndjson) throws IOException {
+        List<Item> items = new ArrayList<>();
+        if (ndjson) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    items.add(toItem(objectMapper.readTree(line)));
+                } catch (IOException e) {
+                    items.add(new Item(null, null, "Malformed JSON line"));
+                }
+                checkSize(items);
+            }
+        } else {
+            JsonNode array;
+            try {
+                array = objectMapper.readTree(body);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed JSON body", e);
+            }
+            if (array == null || !array.isArray()) {
+                throw new IllegalArgumentException("Expected a JSON array of requests");
+            }
+            for (JsonNode node : array) {
+                items.add(toItem(node));
+                checkSize(items);
+            }
+        }
+        return items;
+    }
+
+    private void checkSize(List<Item> items) {
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Batch exceeds " + maxItems + " items");
+        }
+    }
+
+    private static Item toItem(JsonNode node) {
+        String id = node.hasNonNull("id") ? node.get("id").asText() : null;
+        String text = node.isTextual() ? node.asText() : node.hasNonNull("text") ? node.get("text").asText() : null;
+        if (text == null || text.isBlank()) {
+            return new Item(id, null, "Missing request text");
+        }
+        return new Item(id, text, null);
+    }
+
+    /**
+     * Returns the number of result lines written.
+     */
+    public long parseBatch(List<Item> items, OutputStream out) throws IOException {
+        // Flushed after each newline instead, so every result goes out whole the moment it exists
+        ObjectWriter writer = objectMapper.writerFor(BatchParseResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        CompletionService<BatchParseResult> completion = new ExecutorCompletionService<>(batchExecutor);
+        List<Future<BatchParseResult>> futures = new ArrayList<>(items.size());
+
+        int next = 0;
+        int inFlight = 0;
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (next < items.size() || inFlight > 0) {
+                while (inFlight < concurrency && next < items.size()) {
+                    int index = next++;
+                    Item item = items.get(index);
+                    futures.add(completion.submit(() -> parseOne(index, item)));
+                    inFlight++;
+                }
+                BatchParseResult result = completion.take().get();
+                inFlight--;
+                writer.writeValue(generator, result);
+                generator.writeRaw('\n');
+                generator.flush();
+                written++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IOException("Interrupted while parsing batch", e);
+        } catch (ExecutionException e) {
+            // parseOne catches everything, so only a cancelled task gets here
+            futures.forEach(future -> future.cancel(true));
+            throw new IOException("Batch item failed unexpectedly", e.getCause());
+        } catch (IOException e) {
+            // Client went away: stop parsing what nobody will read
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return written;
+    }
+
+    private BatchParseResult parseOne(int index, Item item) {
+        if (item.getError() != null) {
+            return BatchParseResult.failed(index, item.getId(), item.getError());
+        }
+        try {
+            return BatchParseResult.created(index, item.getId(), intakeService.createFromText(item.getText()));
+        } catch (Exception e) {
+            System.err.println("Batch parse failed for item " + index + ": " + e.getMessage());
+            return BatchParseResult.failed(index, item.getId(), "Failed to create workflow: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.WorkflowStep;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the compliance prompts for the steps the rule engine left ambiguous.
+ * Only advisories touching the workflow's countries go in (plus those the
+ * gazetteer cannot place), most severe first. When they do not fit in
+ * app.advisory.prompt-token-budget they are split across several prompts,
+ * each carrying all the steps, so no relevant advisory goes unchecked. When a
+ * place in the itinerary is unknown, relevance cannot be judged and every
+ * advisory is a candidate.
+ */
+@Component
+public class CompliancePromptBuilder {
+
+    private static final String HEADER = "You are a Travel Compliance Officer. Check these itinerary steps against the travel advisories.\n\n";
+
+    private static final String INSTRUCTIONS = "\nINSTRUCTIONS:\n"
+            + "- A step violates an advisory when it travels from the advisory's source to its target country. Check outbound and return legs separately.\n"
+            + "- ISO codes in parentheses are already resolved; use geographic knowledge only for the other places.\n"
+            + "- Return ONLY a JSON object mapping each violating Step ID to { \"warning\": \"...\", \"alternative\": \"...\" }; omit clean steps, {} if none.";
+
+    @Autowired
+    private AdvisoryRegistry advisoryRegistry;
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    @Autowired
+    private CountryResolver countryResolver;
+
+    @Autowired
+    private AdvisoryRuleEngine ruleEngine;
+
+    @Value("${app.advisory.prompt-token-budget:1500}")
+    private int tokenBudget = 1500;
+
+    private final AtomicLong prompts = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong advisoriesIncluded = new AtomicLong();
+    private final AtomicLong advisoriesIrrelevant = new AtomicLong();
+    private final AtomicLong splitValidations = new AtomicLong();
+    private final AtomicLong estimatedTokens = new AtomicLong();
+
+    /**
+     * The prompts, most severe advisories first; empty when no advisory concerns
+     * these steps and the LLM need not be asked.
+     */
+    public List<String> build(BookingWorkflow workflow, List<WorkflowStep> steps) {
+        StringBuilder stepLines = new StringBuilder("\nITINERARY STEPS:\n");
+        Set<String> countryKeys = new LinkedHashSet<>();
+        boolean allPlaced = addWorkflowCountry(countryKeys, workflow.getSourceCountry(), workflow.getSource())
+                & addWorkflowCountry(countryKeys, workflow.getDestinationCountry(), workflow.getDestination());
+        for (WorkflowStep step : steps) {
+            String text = Objects.toString(step.getName(), "") + " " + Objects.toString(step.getDescription(), "");
+            List<String> countries = gazetteer.countriesInOrder(text);
+            countryKeys.addAll(countries);
+            allPlaced &= !ruleEngine.hasUnresolvedPlace(text);
+
+            stepLines.append("- Step ID: ").append(step.getId()).append(" | Name: ").append(step.getName())
+                    .append(" | Desc: ").append(step.getDescription());
+            if (!countries.isEmpty()) {
+                stepLines.append(" | Countries: ").append(String.join(" -> ", countries));
+            }
+            stepLines.append("\n");
+        }
+
+        List<Advisory> all = advisoryRegistry.getAll();
+        List<Advisory> candidates;
+        if (allPlaced) {
+            Set<Advisory> relevant = new LinkedHashSet<>(advisoryRegistry.findByCountryKeys(countryKeys));
+            relevant.addAll(advisoryRegistry.getUnplaced());
+            candidates = new ArrayList<>(relevant);
+        } else {
+            candidates = new ArrayList<>(all);
+        }
+        advisoriesIrrelevant.addAndGet(all.size() - candidates.size());
+        List<String> result = new ArrayList<>();
+        if (candidates.isEmpty()) {
+            skipped.incrementAndGet();
+            return result;
+        }
+        candidates.sort(Comparator.comparingInt(CompliancePromptBuilder::severityRank));
+
+        String head = HEADER + "ACTIVE ADVISORIES:\n";
+        int fixedTokens = LlmService.estimateTokens(head) + LlmService.estimateTokens(stepLines)
+                + LlmService.estimateTokens(INSTRUCTIONS);
+        StringBuilder advisoryLines = new StringBuilder();
+        int tokens = fixedTokens;
+        for (Advisory adv : candidates) {
+            String line = advisoryLine(adv);
+            int lineTokens = LlmService.estimateTokens(line);
+            // Full: close this prompt and start the next; each prompt holds at least one advisory
+            if (advisoryLines.length() > 0 && tokens + lineTokens > tokenBudget) {
+                result.add(head + advisoryLines + stepLines + INSTRUCTIONS);
+                estimatedTokens.addAndGet(tokens);
+                advisoryLines.setLength(0);
+                tokens = fixedTokens;
+            }
+            advisoryLines.append(line);
+            tokens += lineTokens;
+        }
+        result.add(head + advisoryLines + stepLines + INSTRUCTIONS);
+        estimatedTokens.addAndGet(tokens);
+
+        prompts.addAndGet(result.size());
+        advisoriesIncluded.addAndGet(candidates.size());
+        if (result.size() > 1) {
+            splitValidations.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Adds the workflow-level country key; false when the place could not be resolved.
+     */
+    private boolean addWorkflowCountry(Set<String> keys, String storedKey, String location) {
+        String key = storedKey != null ? storedKey : countryResolver.resolve(location);
+        if (key == null) {
+            return true;
+        }
+        keys.add(key);
+        return CountryResolver.isIsoKey(key);
+    }
+
+    private String advisoryLine(Advisory adv) {
+        return "- [" + adv.getSeverity() + "] From " + adv.getSourceCountry() + isoSuffix(adv.getSourceCountry())
+                + " to " + adv.getTargetCountry() + isoSuffix(adv.getTargetCountry()) + ": " + adv.getDescription() + "\n";
+    }
+
+    private String isoSuffix(String country) {
+        String iso = gazetteer.resolveCountry(country);
+        return iso != null ? " (" + iso + ")" : "";
+    }
+
+    private static int severityRank(Advisory adv) {
+        String severity = adv.getSeverity() != null ? adv.getSeverity().trim().toUpperCase(Locale.ROOT) : "";
+        return switch (severity) {
+            case "HIGH" -> 0;
+            case "MEDIUM" -> 1;
+            case "LOW" -> 2;
+            default -> 3;
+        };
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("prompts", prompts.get());
+        stats.put("skippedNoRelevantAdvisories", skipped.get());
+        stats.put("advisoriesIncluded", advisoriesIncluded.get());
+        stats.put("advisoriesIrrelevant", advisoriesIrrelevant.get());
+        stats.put("splitValidations", splitValidations.get());
+        stats.put("estimatedPromptTokens", estimatedTokens.get());
+        stats.put("tokenBudget", tokenBudget);
+        return stats;
+    }
+}
@@ -0,0 +1,50 @@
+package com.travelapp.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+/**
+ * Maps free-text locations ("Delhi", "Paris, France", "BOM") to the country key
+ * stored on workflows and used by the advisory impact scan: an ISO 3166-1
+ * alpha-2 code when the gazetteer knows the place, otherwise the lower-cased
+ * last comma segment.
+ */
+@Service
+public class CountryResolver {
+
+    /**
+     * Bump whenever {@link #resolve(String)} changes, so stored keys get rebuilt.
+     */
+    public static final int KEY_VERSION = 3;
+
+    private final Gazetteer gazetteer;
+
+    public CountryResolver(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    public String resolve(String location) {
+        if (location == null) {
+            return null;
+        }
+        String iso = gazetteer.resolveCountry(location);
+        if (iso != null) {
+            return iso;
+        }
+        // Unknown place: "City, Region, Country" -> the last segment names the country
+        int comma = location.lastIndexOf(',');
+        String country = comma >= 0 ? location.substring(comma + 1) : location;
+        country = country.trim();
+        return country.isEmpty() ? null : country.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * True for keys the gazetteer resolved. Fallback keys are lower-cased, so they
+     * never look like an ISO code.
+     */
+    public static boolean isIsoKey(String key) {
+        return key != null && key.length() == 2
+                && Character.isUpperCase(key.charAt(0)) && Character.isUpperCase(key.charAt(1));
+    }
+}
@@ -0,0 +1,61 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.travelapp.model.Advisory;
+import com.travelapp.model.BookingWorkflow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole collections as NDJSON (one JSON document per line) straight from
+ * a Mongo cursor into Jackson's streaming generator. Only the current cursor
+ * batch is ever in heap, whatever the collection size.
+ */
+@Service
+public class ExportService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.cursor-batch-size:500}")
+    private int cursorBatchSize = 500;
+
+    public long exportWorkflows(OutputStream out) throws IOException {
+        return export(BookingWorkflow.class, out);
+    }
+
+    public long exportAdvisories(OutputStream out) throws IOException {
+        return export(Advisory.class, out);
+    }
+
+    private <T> long export(Class<T> type, OutputStream out) throws IOException {
+        // The generator buffers and flushes as it fills; flushing per document would defeat that
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        Query all = new Query().cursorBatchSize(cursorBatchSize);
+
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                Stream<T> documents = mongoTemplate.stream(all, type)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (T document : (Iterable<T>) documents::iterator) {
+                writer.writeValue(generator, document);
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+}
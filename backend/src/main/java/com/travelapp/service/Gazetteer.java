@@ -0,0 +1,276 @@
+package com.travelapp.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Offline gazetteer of countries, cities and IATA airport codes, compiled at
+ * startup into an Aho-Corasick automaton. One pass over a string finds every
+ * known place on word boundaries and maps it to an ISO 3166-1 alpha-2 code,
+ * without allocating on the matching path.
+ */
+@Component
+public class Gazetteer {
+
+    static final String RESOURCE = "/gazetteer/places.tsv";
+
+    private static final int TYPE_COUNTRY = 0;
+    private static final int TYPE_CITY = 1;
+    private static final int TYPE_IATA = 2;
+    // Airline or brand containing a country name ("China Airlines"): wins as the longer match, names no country
+    private static final int TYPE_BRAND = 3;
+
+    // Entries, indexed by entry id
+    private final String[] entryIso;
+    private final int[] entryType;
+    private final int[] entryLength;
+
+    // Automaton: dense transition table over a compact alphabet
+    private final byte[] alphabet = new byte[Character.MAX_VALUE + 1];
+    private final int alphabetSize;
+    private final int[] delta;
+    private final int[] nodeEntry;   // entry ending exactly at the node, or -1
+    private final int[] outputLink;  // nearest suffix node that has an entry, or -1
+
+    public Gazetteer() {
+        List<String[]> rows = load();
+
+        entryIso = new String[rows.size()];
+        entryType = new int[rows.size()];
+        entryLength = new int[rows.size()];
+
+        Arrays.fill(alphabet, (byte) -1);
+        int symbols = 0;
+        Map<String, String> isoPool = new HashMap<>();
+        List<Map<Integer, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new HashMap<>());
+        terminal.add(-1);
+
+        for (int id = 0; id < rows.size(); id++) {
+            String[] row = rows.get(id);
+            entryType[id] = switch (row[1]) {
+                case "country" -> TYPE_COUNTRY;
+                case "city" -> TYPE_CITY;
+                case "brand" -> TYPE_BRAND;
+                default -> TYPE_IATA;
+            };
+            entryIso[id] = entryType[id] == TYPE_BRAND ? null : isoPool.computeIfAbsent(row[0], k -> k);
+            String name = row[2].toLowerCase(Locale.ROOT);
+            entryLength[id] = name.length();
+
+            int node = 0;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (alphabet[c] < 0) {
+                    if (symbols == Byte.MAX_VALUE) {
+                        throw new IllegalStateException("Gazetteer alphabet too large");
+                    }
+                    alphabet[c] = (byte) symbols++;
+                    // Also accept the upper-case form of the same letter
+                    char upper = Character.toUpperCase(c);
+                    if (upper != c && alphabet[upper] < 0) {
+                        alphabet[upper] = alphabet[c];
+                    }
+                }
+                int symbol = alphabet[c];
+                Integer next = children.get(node).get(symbol);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    terminal.add(-1);
+                    children.get(node).put(symbol, next);
+                }
+                node = next;
+            }
+            if (terminal.get(node) < 0) {
+                terminal.set(node, id);
+            }
+        }
+
+        alphabetSize = symbols;
+        int nodes = children.size();
+        delta = new int[nodes * alphabetSize];
+        nodeEntry = new int[nodes];
+        outputLink = new int[nodes];
+        int[] failure = new int[nodes];
+        for (int n = 0; n < nodes; n++) {
+            nodeEntry[n] = terminal.get(n);
+        }
+
+        // Breadth-first: fold failure links into a complete transition table
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputLink[0] = -1;
+        for (int s = 0; s < alphabetSize; s++) {
+            Integer child = children.get(0).get(s);
+            if (child != null) {
+                delta[s] = child;
+                failure[child] = 0;
+                outputLink[child] = -1;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int s = 0; s < alphabetSize; s++) {
+                Integer child = children.get(node).get(s);
+                if (child != null) {
+                    int fail = delta[failure[node] * alphabetSize + s];
+                    failure[child] = fail;
+                    outputLink[child] = nodeEntry[fail] >= 0 ? fail : outputLink[fail];
+                    delta[node * alphabetSize + s] = child;
+                    queue.add(child);
+                } else {
+                    delta[node * alphabetSize + s] = delta[failure[node] * alphabetSize + s];
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives each place found by {@link #scan}, in order of end position. The
+     * iso is null for a brand name, which only masks the places inside it.
+     */
+    public interface MatchListener {
+        void onMatch(String iso, int start, int end, boolean isCountry);
+    }
+
+    /**
+     * Reports, for every end position, the longest place name that sits on word
+     * boundaries there. IATA codes only count as upper-case tokens.
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        if (text == null) {
+            return;
+        }
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            int symbol = alphabet[text.charAt(i)];
+            if (symbol < 0) {
+                state = 0;
+                continue;
+            }
+            state = delta[state * alphabetSize + symbol];
+
+            int end = i + 1;
+            if (end < length && Character.isLetterOrDigit(text.charAt(end))) {
+                continue;
+            }
+            for (int node = nodeEntry[state] >= 0 ? state : outputLink[state]; node >= 0; node = outputLink[node]) {
+                int entry = nodeEntry[node];
+                int start = end - entryLength[entry];
+                if (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1))) {
+                    continue;
+                }
+                if (entryType[entry] == TYPE_IATA && !isUpperCase(text, start, end)) {
+                    continue;
+                }
+                listener.onMatch(entryIso[entry], start, end, entryType[entry] == TYPE_COUNTRY);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Best single country for a location string: the longest place name wins,
+     * then country names over cities and airports, then the rightmost mention
+     * ("Paris, France"). Null when nothing is recognised.
+     */
+    public String resolveCountry(CharSequence location) {
+        BestMatch best = new BestMatch();
+        scan(location, best);
+        return best.iso;
+    }
+
+    /**
+     * Countries in the order they are mentioned, consecutive repeats collapsed
+     * ("Delhi to Guangzhou via Hong Kong" gives [IN, CN, HK]).
+     */
+    public List<String> countriesInOrder(CharSequence text) {
+        List<String> countries = new ArrayList<>(4);
+        int[] lastStart = {Integer.MAX_VALUE};
+        scan(text, (iso, start, end, isCountry) -> {
+            // A longer name swallowing the previous one ("North Korea" over "Korea") replaces it
+            if (!countries.isEmpty() && start <= lastStart[0]) {
+                countries.remove(countries.size() - 1);
+            }
+            if (iso != null && (countries.isEmpty() || !countries.get(countries.size() - 1).equals(iso))) {
+                countries.add(iso);
+            }
+            lastStart[0] = start;
+        });
+        return countries;
+    }
+
+    private static boolean isUpperCase(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isUpperCase(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String[]> load() {
+        List<String[]> rows = new ArrayList<>();
+        try (InputStream in = Gazetteer.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing gazetteer resource " + RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length == 3) {
+                    rows.add(columns);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read gazetteer", e);
+        }
+        return rows;
+    }
+
+    private static final class BestMatch implements MatchListener {
+        String iso;
+        int start;
+        int length = -1;
+        boolean country;
+
+        @Override
+        public void onMatch(String iso, int start, int end, boolean isCountry) {
+            if (iso == null) {
+                // A brand masks the place inside it, but never wins itself
+                if (this.iso != null && this.start >= start) {
+                    this.iso = null;
+                    this.length = -1;
+                }
+                return;
+            }
+            int matchLength = end - start;
+            if (matchLength > length || (matchLength == length && (isCountry || !country))) {
+                this.iso = iso;
+                this.start = start;
+                this.length = matchLength;
+                this.country = isCountry;
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.travelapp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One left-to-right pass over a free-text booking request with a single
+ * precompiled pattern, picking out the services asked for, places, the travel
+ * date and an email address, and scoring how sure it is that nothing else was
+ * asked for. Confident scans are turned into workflows without the LLM.
+ */
+@Component
+public class ItineraryScanner {
+
+    public enum Intent { FLIGHT, HOTEL, TRANSFER }
+
+    private static final String MONTHS = "jan|feb|mar|apr|may|jun|jul|aug|sep|sept|oct|nov|dec";
+    private static final String MONTH_NAMES = MONTHS
+            + "|january|february|march|april|june|july|august|september|october|november|december";
+
+    // Alternatives are tried in order at each position; "word" is the catch-all and must stay last
+    private static final Pattern TOKEN = Pattern.compile(
+            "(?<email>[\\w.+-]+@[\\w-]+(?:\\.[\\w-]+)+)"
+                    + "|(?<iso>\\b\\d{4}-\\d{2}-\\d{2}\\b)"
+                    + "|\\b(?<dm>\\d{1,2})(?:st|nd|rd|th)?\\s+(?<dmMonth>(?i:" + MONTH_NAMES + "))\\.?(?:,?\\s+(?<dmYear>\\d{4}))?\\b"
+                    + "|\\b(?<mdMonth>(?i:" + MONTH_NAMES + "))\\.?\\s+(?<md>\\d{1,2})(?:st|nd|rd|th)?\\b(?:,?\\s+(?<mdYear>\\d{4})\\b)?"
+                    // A capitalised name after a place preposition; "in May" is a date, not a place
+                    + "|\\b(?<prep>(?i:from|to|in))\\s+(?!(?i:" + MONTH_NAMES + ")\\b)(?<place>\\p{Lu}[\\p{L}'-]*(?:\\s+\\p{Lu}[\\p{L}'-]*)?)"
+                    + "|(?<word>\\p{L}+)");
+
+    // Words naming something the scanner cannot plan for; the LLM gets those requests
+    private static final Set<String> COMPLEX = Set.of(
+            "train", "rail", "cruise", "ferry", "tour", "tours", "safari", "visa", "insurance", "excursion",
+            "excursions", "then", "via", "return", "roundtrip", "multi", "honeymoon", "itinerary", "package");
+
+    // "no hotel needed", "don't book a taxi": the scanner cannot tell what a negation applies to,
+    // so these go to the LLM too. Apostrophes split words, hence "don" and "doesn".
+    private static final Set<String> NEGATIONS = Set.of(
+            "no", "not", "don", "dont", "doesn", "won", "never", "without", "except", "skip", "nor");
+
+    private static final Map<String, Intent> INTENTS = new HashMap<>();
+
+    static {
+        for (String word : new String[] { "flight", "flights", "fly", "flying" }) {
+            INTENTS.put(word, Intent.FLIGHT);
+        }
+        for (String word : new String[] { "hotel", "hotels", "stay", "accommodation" }) {
+            INTENTS.put(word, Intent.HOTEL);
+        }
+        for (String word : new String[] { "cab", "taxi", "transfer", "transfers" }) {
+            INTENTS.put(word, Intent.TRANSFER);
+        }
+    }
+
+    @Autowired
+    private Gazetteer gazetteer;
+
+    public ItineraryScanner() {
+    }
+
+    ItineraryScanner(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    public static final class Scan {
+        private final Set<Intent> intents = EnumSet.noneOf(Intent.class);
+        private final Set<String> places = new LinkedHashSet<>();
+        private String email;
+        private LocalDate travelDate;
+        private String source;
+        private String destination;
+        private String stayPlace;
+        private int unresolvedPlaces;
+        private int complexMarkers;
+
+        public Set<Intent> getIntents() {
+            return intents;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public LocalDate getTravelDate() {
+            return travelDate;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getDestination() {
+            return destination != null ? destination : stayPlace;
+        }
+
+        public String getStayPlace() {
+            return stayPlace != null ? stayPlace : destination;
+        }
+
+        /**
+         * 0 when no service was recognised; 1 for a single-destination request
+         * whose places all resolve and which mentions nothing we cannot plan.
+         */
+        public double getConfidence() {
+            if (intents.isEmpty()) {
+                return 0;
+            }
+            // Whole tenths, so a perfect score does not come out as 0.8999999999999999
+            int points = 5;
+            if (getDestination() != null) {
+                points += 2;
+            }
+            // Only flights need an origin
+            if (source != null || !intents.contains(Intent.FLIGHT)) {
+                points += 1;
+            }
+            if (travelDate != null) {
+                points += 1;
+            }
+            if (unresolvedPlaces == 0) {
+                points += 1;
+            }
+            if (places.size() > 2) {
+                points -= 3;
+            }
+            points -= 3 * complexMarkers;
+            return Math.max(0, Math.min(10, points)) / 10.0;
+        }
+    }
+
+    public Scan scan(String text) {
+        Scan scan = new Scan();
+        if (text == null) {
+            return scan;
+        }
+        Matcher m = TOKEN.matcher(text);
+        while (m.find()) {
+            if (m.start("word") >= 0) {
+                onWord(scan, m.group("word"));
+            } else if (m.start("place") >= 0) {
+                String place = m.group("place");
+                int space = place.lastIndexOf(' ');
+                if (space < 0 && onWord(scan, place)) {
+                    continue; // "want to Fly"
+                }
+                // "to Paris Hotel": the second word is a keyword, not part of the name
+                if (space > 0 && onWord(scan, place.substring(space + 1))) {
+                    place = place.substring(0, space).trim();
+                }
+                onPlace(scan, m.group("prep").toLowerCase(Locale.ROOT), place);
+            } else if (m.start("email") >= 0) {
+                if (scan.email == null) {
+                    scan.email = m.group("email");
+                }
+            } else if (scan.travelDate == null) {
+                scan.travelDate = toDate(m);
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Returns true when the word is one of the scanner's keywords.
+     */
+    private static boolean onWord(Scan scan, String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        Intent intent = INTENTS.get(lower);
+        if (intent != null) {
+            scan.intents.add(intent);
+            return true;
+        }
+        if (COMPLEX.contains(lower) || NEGATIONS.contains(lower)) {
+            scan.complexMarkers++;
+            return true;
+        }
+        return false;
+    }
+
+    private void onPlace(Scan scan, String prep, String place) {
+        String iso = gazetteer.resolveCountry(place);
+        if (iso == null) {
+            scan.unresolvedPlaces++;
+            return;
+        }
+        scan.places.add(iso);
+        switch (prep) {
+            case "from" -> {
+                if (scan.source == null) {
+                    scan.source = place;
+                }
+            }
+            case "to" -> {
+                if (scan.destination == null) {
+                    scan.destination = place;
+                }
+            }
+            default -> {
+                if (scan.stayPlace == null) {
+                    scan.stayPlace = place;
+                }
+            }
+        }
+    }
+
+    private static LocalDate toDate(Matcher m) {
+        try {
+            if (m.start("iso") >= 0) {
+                return LocalDate.parse(m.group("iso"));
+            }
+            boolean dayFirst = m.start("dm") >= 0;
+            int day = Integer.parseInt(dayFirst ? m.group("dm") : m.group("md"));
+            Month month = month(dayFirst ? m.group("dmMonth") : m.group("mdMonth"));
+            String year = dayFirst ? m.group("dmYear") : m.group("mdYear");
+            if (month == null) {
+                return null;
+            }
+            if (year != null) {
+                return LocalDate.of(Integer.parseInt(year), month, day);
+            }
+            // No year: the next time that day comes round
+            LocalDate today = LocalDate.now();
+            LocalDate date = LocalDate.of(today.getYear(), month, day);
+            return date.isBefore(today) ? date.plusYears(1) : date;
+        } catch (DateTimeException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Month month(String name) {
+        String prefix = name.substring(0, 3).toUpperCase(Locale.ROOT);
+        for (Month month : Month.values()) {
+            if (month.name().startsWith(prefix)) {
+                return month;
+            }
+        }
+        return null;
+    }
+}
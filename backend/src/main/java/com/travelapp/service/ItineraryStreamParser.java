@@ -0,0 +1,187 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.travelapp.model.ParsedItinerary;
+import com.travelapp.model.WorkflowStep;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental parser for the itinerary JSON the LLM writes, fed text fragments
+ * as they stream in. Built on Jackson's non-blocking parser, so a fragment can
+ * end anywhere (mid-string, mid-number). Each element of "steps" is reported the
+ * moment its object closes, and each top-level scalar as soon as it is complete.
+ * Code fences and anything else around the root object are ignored.
+ * <p>
+ * Not thread-safe; one instance per response.
+ */
+public class ItineraryStreamParser {
+
+    /**
+     * Receives parse progress. onReset means steps reported so far are void
+     * (the stream failed and a fallback result follows).
+     */
+    public interface Listener {
+        default void onField(String name, String value) {
+        }
+
+        void onStep(WorkflowStep step);
+
+        default void onReset() {
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Listener listener;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private final StringBuilder text = new StringBuilder();
+    private final Map<String, String> fields = new HashMap<>();
+    private final List<WorkflowStep> steps = new ArrayList<>();
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String field;
+    private boolean inSteps;
+    private TokenBuffer stepTokens;
+    private int stepDepth;
+
+    public ItineraryStreamParser(ObjectMapper objectMapper, Listener listener) throws IOException {
+        this.objectMapper = objectMapper;
+        this.listener = listener;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    public void feed(String fragment) throws IOException {
+        text.append(fragment);
+        if (finished) {
+            return;
+        }
+        if (!started) {
+            int brace = fragment.indexOf('{');
+            if (brace < 0) {
+                return;
+            }
+            fragment = fragment.substring(brace);
+            started = true;
+        }
+        byte[] bytes = fragment.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+            if (token == null) {
+                finished = true;
+                break;
+            }
+            if (stepTokens != null) {
+                stepTokens.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    stepDepth++;
+                } else if (token.isStructEnd() && --stepDepth == 0) {
+                    emitStep(objectMapper.readTree(stepTokens.asParser(objectMapper)));
+                    stepTokens = null;
+                }
+                continue;
+            }
+            switch (token) {
+                case START_OBJECT -> {
+                    if (inSteps && depth == 2) {
+                        stepTokens = new TokenBuffer(parser);
+                        stepTokens.copyCurrentEvent(parser);
+                        stepDepth = 1;
+                    } else {
+                        depth++;
+                    }
+                }
+                case START_ARRAY -> {
+                    depth++;
+                    inSteps = depth == 2 && "steps".equals(field);
+                }
+                case END_ARRAY -> {
+                    if (depth == 2) {
+                        inSteps = false;
+                    }
+                    depth--;
+                }
+                case END_OBJECT -> {
+                    // Root closed: whatever follows (a closing code fence) is not ours
+                    if (--depth == 0) {
+                        finished = true;
+                    }
+                }
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        field = parser.currentName();
+                    }
+                }
+                default -> {
+                    if (depth == 1 && field != null) {
+                        String value = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                        fields.put(field, value);
+                        listener.onField(field, value);
+                    }
+                }
+            }
+        }
+    }
+
+    private void emitStep(JsonNode node) {
+        String name = node.hasNonNull("name") ? node.get("name").asText() : "Unknown Step";
+        String description = node.hasNonNull("description") ? node.get("description").asText() : "";
+        WorkflowStep step = new WorkflowStep("step-" + System.nanoTime() + "-" + steps.size(), name, description,
+                WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        steps.add(step);
+        listener.onStep(step);
+    }
+
+    /**
+     * Everything fed so far, fences included.
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    public List<WorkflowStep> getSteps() {
+        return steps;
+    }
+
+    /**
+     * The itinerary, or null when the root object never closed (truncated or
+     * not JSON at all).
+     */
+    public ParsedItinerary result() {
+        if (!finished || depth != 0) {
+            return null;
+        }
+        LocalDate travelDate = null;
+        String date = fields.get("travelDate");
+        if (date != null) {
+            try {
+                travelDate = LocalDate.parse(date);
+            } catch (Exception e) {
+                System.err.println("Failed to parse travelDate: " + e.getMessage());
+            }
+        }
+        String title = fields.get("title");
+        return new ParsedItinerary(title != null ? title : "New Itinerary", fields.get("customerEmail"), steps,
+                travelDate, fields.get("source"), fields.get("destination"));
+    }
+}
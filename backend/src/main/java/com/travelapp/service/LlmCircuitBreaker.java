@@ -0,0 +1,94 @@
+package com.travelapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops calling the LLM provider after repeated failures so callers drop to
+ * their heuristic paths immediately instead of each paying the full timeout.
+ * After the open period a single trial call decides whether to close again.
+ */
+@Component
+public class LlmCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @Value("${ai.breaker.failure-threshold:5}")
+    private int failureThreshold = 5;
+
+    @Value("${ai.breaker.open-duration:30s}")
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    private final AtomicLong shortCircuited = new AtomicLong();
+    private final AtomicLong timesOpened = new AtomicLong();
+
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDuration.toNanos()) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        shortCircuited.incrementAndGet();
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                timesOpened.incrementAndGet();
+            }
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * The permitted call never reached the provider (e.g. rate limited); frees
+     * the half-open trial slot without judging the provider.
+     */
+    public synchronized void recordAbandoned() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", state);
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("failureThreshold", failureThreshold);
+        stats.put("openDurationMs", openDuration.toMillis());
+        stats.put("timesOpened", timesOpened.get());
+        stats.put("shortCircuited", shortCircuited.get());
+        return stats;
+    }
+}
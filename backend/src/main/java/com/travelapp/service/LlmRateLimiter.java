@@ -0,0 +1,84 @@
+package com.travelapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket keeping outbound LLM calls under the provider's quota. Callers
+ * wait up to a bounded time for a token and give up (null response) after that.
+ */
+@Component
+public class LlmRateLimiter {
+
+    @Value("${ai.ratelimit.permits-per-second:5}")
+    private double permitsPerSecond = 5;
+
+    @Value("${ai.ratelimit.burst:10}")
+    private int burst = 10;
+
+    private double tokens = -1; // filled to burst on first use
+    private long lastRefillNanos;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public boolean acquire(Duration maxWait) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        waiting.incrementAndGet();
+        try {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    refill();
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return true;
+                    }
+                    waitNanos = (long) ((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+                }
+                if (System.nanoTime() + waitNanos > deadline) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        if (tokens < 0) {
+            tokens = burst;
+        } else {
+            double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            tokens = Math.min(burst, tokens + elapsedSeconds * permitsPerSecond);
+        }
+        lastRefillNanos = now;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (this) {
+            refill();
+            stats.put("availableTokens", Math.floor(tokens));
+        }
+        stats.put("permitsPerSecond", permitsPerSecond);
+        stats.put("burst", burst);
+        stats.put("queueDepth", waiting.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+}
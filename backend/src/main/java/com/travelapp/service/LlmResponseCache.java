@@ -0,0 +1,156 @@
+package com.travelapp.service;
+
+import com.travelapp.model.LlmCacheEntry;
+import com.travelapp.repository.LlmCacheRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Two-tier cache of LLM responses: an in-heap LRU in front of a Mongo
+ * collection that survives restarts. Both tiers honour a per-entry TTL chosen
+ * by the caller.
+ */
+@Service
+public class LlmResponseCache {
+
+    @Autowired
+    private LlmCacheRepository repository;
+
+    @Value("${ai.cache.max-entries:1000}")
+    private int maxEntries = 1000;
+
+    private final Map<String, CachedResponse> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final Map<String, CallerStats> stats = new ConcurrentHashMap<>();
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public String get(String caller, String prompt) {
+        String key = key(caller, prompt);
+        Instant now = Instant.now();
+        CallerStats callerStats = statsFor(caller);
+
+        synchronized (memory) {
+            CachedResponse cached = memory.get(key);
+            if (cached != null) {
+                if (cached.expiresAt.isAfter(now)) {
+                    callerStats.memoryHits.incrementAndGet();
+                    return cached.response;
+                }
+                memory.remove(key);
+            }
+        }
+
+        try {
+            Optional<LlmCacheEntry> stored = repository.findById(key);
+            // Mongo's TTL monitor runs about once a minute, so expiry is re-checked here
+            if (stored.isPresent() && stored.get().getExpiresAt().isAfter(now)) {
+                synchronized (memory) {
+                    memory.put(key, new CachedResponse(stored.get().getResponse(), stored.get().getExpiresAt()));
+                }
+                callerStats.mongoHits.incrementAndGet();
+                return stored.get().getResponse();
+            }
+        } catch (Exception e) {
+            System.err.println("LLM cache lookup failed: " + e.getMessage());
+        }
+
+        callerStats.misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String caller, String prompt, String response, Duration ttl) {
+        String key = key(caller, prompt);
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        synchronized (memory) {
+            memory.put(key, new CachedResponse(response, expiresAt));
+        }
+        try {
+            repository.save(new LlmCacheEntry(key, caller, response, now, expiresAt));
+        } catch (Exception e) {
+            System.err.println("LLM cache write failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Entries in the in-memory tier.
+     */
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        synchronized (memory) {
+            result.put("memorySize", memory.size());
+        }
+        result.put("maxEntries", maxEntries);
+
+        Map<String, Object> callers = new HashMap<>();
+        stats.forEach((caller, s) -> {
+            long memoryHits = s.memoryHits.get();
+            long mongoHits = s.mongoHits.get();
+            long misses = s.misses.get();
+            long lookups = memoryHits + mongoHits + misses;
+
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("memoryHits", memoryHits);
+            entry.put("mongoHits", mongoHits);
+            entry.put("misses", misses);
+            entry.put("hitRate", lookups == 0 ? 0.0 : (double) (memoryHits + mongoHits) / lookups);
+            callers.put(caller, entry);
+        });
+        result.put("callers", callers);
+        return result;
+    }
+
+    CallerStats statsFor(String caller) {
+        return stats.computeIfAbsent(caller, c -> new CallerStats());
+    }
+
+    /**
+     * Whitespace-insensitive, so reformatted but otherwise identical prompts share an entry.
+     */
+    static String normalize(String prompt) {
+        return WHITESPACE.matcher(prompt.trim()).replaceAll(" ");
+    }
+
+    private static String key(String caller, String prompt) {
+        return ValidationCacheService.sha256(caller + "\u0001" + normalize(prompt));
+    }
+
+    private static final class CachedResponse {
+        final String response;
+        final Instant expiresAt;
+
+        CachedResponse(String response, Instant expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    static final class CallerStats {
+        final AtomicLong memoryHits = new AtomicLong();
+        final AtomicLong mongoHits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+    }
+}
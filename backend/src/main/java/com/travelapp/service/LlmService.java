@@ -4,18 +4,42 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.travelapp.model.WorkflowStep;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class LlmService {
@@ -26,55 +50,334 @@ public class LlmService {
     @Value("${ai.api.url:https://generativelanguage.googleapis.com/v1beta/models/gemini-pro:generateContent}")
     private String apiUrl;
 
+    // Empty: derived from ai.api.url when that is a Gemini generateContent URL
+    @Value("${ai.api.stream-url:}")
+    private String apiStreamUrl;
+
     @Autowired
     private RestTemplate restTemplate;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    @Qualifier("llmExecutor")
+    private Executor llmExecutor;
+
+    @Autowired
+    private LlmResponseCache responseCache;
+
+    @Value("${ai.cache.ttl.itinerary:24h}")
+    private Duration itineraryCacheTtl;
+
+    @Autowired
+    private LlmCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private LlmRateLimiter rateLimiter;
+
+    // Replaced by the application's registry; the global one keeps hand-built instances working
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Value("${ai.ratelimit.max-wait:10s}")
+    private Duration rateLimitMaxWait;
+
+    @Value("${ai.retry.max-attempts:3}")
+    private int retryMaxAttempts = 3;
+
+    @Value("${ai.retry.initial-backoff:500ms}")
+    private Duration retryInitialBackoff = Duration.ofMillis(500);
+
+    @Value("${ai.retry.max-backoff:8s}")
+    private Duration retryMaxBackoff = Duration.ofSeconds(8);
+
+    // No retry starts once this much time has passed since the first attempt
+    @Value("${ai.retry.max-total-time:20s}")
+    private Duration retryMaxTotalTime = Duration.ofSeconds(20);
+
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 500, 502, 503, 504);
+
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private final Map<String, TokenUsage> tokenUsage = new ConcurrentHashMap<>();
+
+    /**
+     * Token counts per caller, as reported in the response's usageMetadata. Calls
+     * whose provider reported nothing are counted as unreported; the estimate
+     * (chars / 4) is kept for every call so budgets can be checked against reality.
+     */
+    private static final class TokenUsage {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong unreported = new AtomicLong();
+        final AtomicLong promptTokens = new AtomicLong();
+        final AtomicLong responseTokens = new AtomicLong();
+        final AtomicLong estimatedPromptTokens = new AtomicLong();
+    }
+
+    @PostConstruct
+    public void registerMeters() {
+        FunctionCounter.builder("llm.retries", retryCount, AtomicLong::get)
+                .description("LLM calls retried after a retryable failure")
+                .register(meterRegistry);
+        for (LlmCircuitBreaker.State state : LlmCircuitBreaker.State.values()) {
+            Gauge.builder("llm.circuit.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                    .description("1 for the circuit breaker's current state")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("llm.ratelimit.waiting", rateLimiter, LlmRateLimiter::getQueueDepth)
+                .description("Calls waiting for a rate limiter permit")
+                .register(meterRegistry);
+        Gauge.builder("llm.cache.size", responseCache, LlmResponseCache::size)
+                .description("Responses held in the in-memory LLM cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Latency of one LLM call by caller and outcome: success, failure (provider
+     * error or retries used up), skipped (no key, breaker open, rate limit) or
+     * error (unexpected, on our side).
+     */
+    private Timer callTimer(String caller, String outcome) {
+        return Timer.builder("llm.requests")
+                .tag("caller", caller)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void recordSizes(String caller, String prompt, String response) {
+        meterRegistry.summary("llm.prompt.size", "caller", caller).record(prompt.length());
+        if (response != null) {
+            meterRegistry.summary("llm.response.size", "caller", caller).record(response.length());
+        }
+    }
+
+    /**
+     * Rough token count for budgeting prompts: about four characters per token
+     * for English text.
+     */
+    public static int estimateTokens(CharSequence text) {
+        return (text.length() + 3) / 4;
+    }
+
+    /**
+     * Like {@link #fetchLlmResponse(String)}, but served from the response cache
+     * when the caller opts in with a positive TTL. Failures (null) are not cached.
+     */
+    public String fetchLlmResponse(String prompt, String caller, Duration cacheTtl) {
+        boolean cacheable = cacheTtl != null && !cacheTtl.isZero() && !cacheTtl.isNegative();
+        if (cacheable) {
+            String cached = responseCache.get(caller, prompt);
+            meterRegistry.counter("llm.cache.requests", "caller", caller, "result", cached != null ? "hit" : "miss")
+                    .increment();
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String response = request(prompt, caller);
+        if (cacheable && response != null) {
+            responseCache.put(caller, prompt, response, cacheTtl);
+        }
+        return response;
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchLlmResponse(String)}; completes with
+     * null on the same failures the sync call returns null for.
+     */
+    public CompletableFuture<String> fetchLlmResponseAsync(String prompt) {
+        return CompletableFuture.supplyAsync(() -> fetchLlmResponse(prompt), llmExecutor);
+    }
+
     public String fetchLlmResponse(String prompt) {
+        return request(prompt, "untagged");
+    }
+
+    private String request(String prompt, String caller) {
         if (apiKey == null || apiKey.isEmpty()) {
             System.out.println("No AI API Key found. Skipping LLM generation.");
             return null;
         }
+        if (!circuitBreaker.allowRequest()) {
+            System.err.println("LLM circuit breaker is open. Skipping LLM call.");
+            callTimer(caller, "skipped").record(Duration.ZERO);
+            return null;
+        }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        String content = null;
         try {
-            // Construct Gemini-compatible payload
-            Map<String, Object> content = new HashMap<>();
-            content.put("parts", new Object[]{Map.of("text", prompt)});
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("contents", new Object[]{content});
-
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
+            String targetUrl = authorize(apiUrl, headers);
 
-            String targetUrl = apiUrl;
-            if (targetUrl.contains("googleapis.com")) {
-                targetUrl += "?key=" + apiKey;
-            } else {
-                headers.set("Authorization", "Bearer " + apiKey);
-            }
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody(prompt), headers);
+
+            String response = postWithRetry(targetUrl, entity);
+            outcome = response != null ? "success" : "failure";
+            content = response != null ? extractContent(response, prompt, caller) : null;
+            return content;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.recordAbandoned();
+            return null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            circuitBreaker.recordAbandoned();
+            return null;
+        } finally {
+            sample.stop(callTimer(caller, outcome));
+            recordSizes(caller, prompt, content);
+        }
+    }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+    // Gemini-compatible payload
+    private static Map<String, Object> requestBody(String prompt) {
+        Map<String, Object> content = new HashMap<>();
+        content.put("parts", new Object[]{Map.of("text", prompt)});
 
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("contents", new Object[]{content});
+        return requestBody;
+    }
+
+    // Google takes the key as a query parameter, other providers as a bearer token
+    private String authorize(String url, HttpHeaders headers) {
+        if (url.contains("googleapis.com")) {
+            return url + (url.contains("?") ? "&" : "?") + "key=" + apiKey;
+        }
+        headers.set("Authorization", "Bearer " + apiKey);
+        return url;
+    }
+
+    /**
+     * Rate-limited POST with jittered exponential backoff on retryable failures
+     * (429, 5xx, I/O), within ai.retry.max-total-time. A read timeout is not
+     * retried: the provider may still be working on the request, and another full
+     * read timeout would only make the caller wait longer. Reports the outcome to
+     * the circuit breaker; null on failure.
+     */
+    private String postWithRetry(String targetUrl, HttpEntity<Map<String, Object>> entity) throws InterruptedException {
+        long deadline = System.nanoTime() + retryMaxTotalTime.toNanos();
+        for (int attempt = 1; ; attempt++) {
+            if (!rateLimiter.acquire(rateLimitMaxWait)) {
+                System.err.println("LLM rate limit wait exceeded. Skipping LLM call.");
+                circuitBreaker.recordAbandoned();
+                return null;
+            }
+
+            Duration retryAfter = null;
             try {
                 String response = restTemplate.postForObject(targetUrl, entity, String.class);
-                return extractContent(response);
-            } catch (Exception e) {
-                System.err.println("LLM API Call Failed: " + e.getMessage());
+                circuitBreaker.recordSuccess();
+                return response;
+            } catch (RestClientResponseException e) {
+                int status = e.getStatusCode().value();
+                if (!RETRYABLE_STATUSES.contains(status)) {
+                    // The provider answered; the request itself is at fault
+                    System.err.println("LLM API Call Failed: " + e.getMessage());
+                    circuitBreaker.recordSuccess();
+                    return null;
+                }
+                retryAfter = parseRetryAfter(e.getResponseHeaders());
+                System.err.println("LLM API Call Failed (attempt " + attempt + "): HTTP " + status);
+            } catch (ResourceAccessException e) {
+                System.err.println("LLM API Call Failed (attempt " + attempt + "): " + e.getMessage());
+                if (isReadTimeout(e)) {
+                    circuitBreaker.recordFailure();
+                    return null;
+                }
+            }
+
+            if (attempt >= retryMaxAttempts) {
+                circuitBreaker.recordFailure();
                 return null;
             }
+            Duration delay = backoff(attempt, retryAfter);
+            if (System.nanoTime() + delay.toNanos() > deadline) {
+                System.err.println("LLM retry time budget used up after attempt " + attempt);
+                circuitBreaker.recordFailure();
+                return null;
+            }
+            retryCount.incrementAndGet();
+            Thread.sleep(delay.toMillis());
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    // Connect and pool-acquire timeouts mean the request was never sent, so those are still retried
+    private static boolean isReadTimeout(ResourceAccessException e) {
+        return e.getCause() instanceof SocketTimeoutException timeout
+                && (timeout.getMessage() == null || !timeout.getMessage().toLowerCase(Locale.ROOT).contains("connect"));
+    }
+
+    Duration backoff(int attempt, Duration retryAfter) {
+        if (retryAfter != null) {
+            return retryAfter.compareTo(retryMaxBackoff) > 0 ? retryMaxBackoff : retryAfter;
+        }
+        // Full jitter: uniform in [0, min(max, initial * 2^(attempt-1))]
+        long ceiling = Math.min(retryMaxBackoff.toMillis(), retryInitialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    static Duration parseRetryAfter(HttpHeaders headers) {
+        String value = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (value == null) {
             return null;
         }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null; // HTTP-date form; fall back to our own backoff
+        }
+    }
+
+    public Map<String, Object> getResilienceStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+        stats.put("rateLimiter", rateLimiter.getStats());
+        stats.put("retries", retryCount.get());
+        return stats;
+    }
+
+    public Map<String, Object> getTokenUsageStats() {
+        Map<String, Object> stats = new HashMap<>();
+        tokenUsage.forEach((caller, usage) -> {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("calls", usage.calls.get());
+            entry.put("unreported", usage.unreported.get());
+            entry.put("promptTokens", usage.promptTokens.get());
+            entry.put("responseTokens", usage.responseTokens.get());
+            entry.put("estimatedPromptTokens", usage.estimatedPromptTokens.get());
+            stats.put(caller, entry);
+        });
+        return stats;
+    }
+
+    private void recordUsage(String caller, String prompt, JsonNode usageMetadata) {
+        TokenUsage usage = tokenUsage.computeIfAbsent(caller, k -> new TokenUsage());
+        usage.calls.incrementAndGet();
+        usage.estimatedPromptTokens.addAndGet(estimateTokens(prompt));
+        if (usageMetadata == null || !usageMetadata.has("promptTokenCount")) {
+            usage.unreported.incrementAndGet();
+            return;
+        }
+        long promptTokens = usageMetadata.path("promptTokenCount").asLong();
+        long responseTokens = usageMetadata.path("candidatesTokenCount").asLong();
+        usage.promptTokens.addAndGet(promptTokens);
+        usage.responseTokens.addAndGet(responseTokens);
+        meterRegistry.counter("llm.tokens", "caller", caller, "type", "prompt").increment(promptTokens);
+        meterRegistry.counter("llm.tokens", "caller", caller, "type", "response").increment(responseTokens);
     }
 
-    private String extractContent(String jsonResponse) {
+    private String extractContent(String jsonResponse, String prompt, String caller) {
         try {
             JsonNode root = objectMapper.readTree(jsonResponse);
+            recordUsage(caller, prompt, root.get("usageMetadata"));
 
             if (root.has("candidates") && root.get("candidates").isArray()) {
                 JsonNode candidate = root.get("candidates").get(0);
@@ -90,13 +393,153 @@ public class LlmService {
 
     public com.travelapp.model.ParsedItinerary generateItinerary(String userRequest) {
         String prompt = constructPrompt(userRequest);
-        String responseText = fetchLlmResponse(prompt);
+        String responseText = fetchLlmResponse(prompt, "generateItinerary", itineraryCacheTtl);
         if (responseText == null) {
             return null;
         }
         return parseLlmResponse(responseText);
     }
 
+    /**
+     * Like {@link #generateItinerary}, but over the provider's streaming endpoint:
+     * each step reaches the listener as soon as the model has finished writing it.
+     * Returns null on the same failures generateItinerary does. Providers without
+     * a streaming URL get the blocking call, with all steps reported at the end.
+     */
+    public com.travelapp.model.ParsedItinerary streamItinerary(String userRequest, ItineraryStreamParser.Listener listener) {
+        String prompt = constructPrompt(userRequest);
+        String streamTarget = streamUrl();
+        String cached = streamTarget != null ? responseCache.get("generateItinerary", prompt) : null;
+        if (streamTarget != null) {
+            meterRegistry.counter("llm.cache.requests", "caller", "generateItinerary", "result", cached != null ? "hit" : "miss")
+                    .increment();
+        }
+        if (streamTarget == null || cached != null) {
+            String responseText = cached != null ? cached : fetchLlmResponse(prompt, "generateItinerary", itineraryCacheTtl);
+            com.travelapp.model.ParsedItinerary result = responseText != null ? parseLlmResponse(responseText) : null;
+            if (result != null) {
+                result.getSteps().forEach(listener::onStep);
+            }
+            return result;
+        }
+        if (apiKey == null || apiKey.isEmpty()) {
+            System.out.println("No AI API Key found. Skipping LLM generation.");
+            return null;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            System.err.println("LLM circuit breaker is open. Skipping LLM call.");
+            callTimer("generateItinerary", "skipped").record(Duration.ZERO);
+            return null;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        String content = null;
+        try {
+            if (!rateLimiter.acquire(rateLimitMaxWait)) {
+                System.err.println("LLM rate limit wait exceeded. Skipping LLM call.");
+                circuitBreaker.recordAbandoned();
+                return null;
+            }
+            ItineraryStreamParser parser = new ItineraryStreamParser(objectMapper, listener);
+            HttpHeaders headers = new HttpHeaders();
+            String targetUrl = authorize(streamTarget, headers);
+            // No retries: steps already handed out cannot be taken back mid-stream
+            JsonNode usageMetadata = restTemplate.execute(targetUrl, HttpMethod.POST, request -> {
+                request.getHeaders().putAll(headers);
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                objectMapper.writeValue(request.getBody(), requestBody(prompt));
+            }, response -> readStream(response.getBody(), parser));
+            circuitBreaker.recordSuccess();
+            recordUsage("generateItinerary", prompt, usageMetadata);
+
+            com.travelapp.model.ParsedItinerary result = parser.result();
+            content = parser.getText();
+            if (result != null) {
+                outcome = "success";
+            }
+            if (result != null && itineraryCacheTtl != null && !itineraryCacheTtl.isZero() && !itineraryCacheTtl.isNegative()) {
+                responseCache.put("generateItinerary", prompt, parser.getText(), itineraryCacheTtl);
+            }
+            return result;
+        } catch (RestClientResponseException e) {
+            System.err.println("LLM streaming call failed: HTTP " + e.getStatusCode().value());
+            if (RETRYABLE_STATUSES.contains(e.getStatusCode().value())) {
+                circuitBreaker.recordFailure();
+            } else {
+                circuitBreaker.recordSuccess();
+            }
+            return null;
+        } catch (ResourceAccessException e) {
+            System.err.println("LLM streaming call failed: " + e.getMessage());
+            circuitBreaker.recordFailure();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.recordAbandoned();
+            outcome = "error";
+            return null;
+        } catch (Exception e) {
+            // Typically the model wrote something that is not JSON
+            System.err.println("LLM streaming response unusable: " + e.getMessage());
+            circuitBreaker.recordAbandoned();
+            return null;
+        } finally {
+            sample.stop(callTimer("generateItinerary", outcome));
+            recordSizes("generateItinerary", prompt, content);
+        }
+    }
+
+    /**
+     * The streaming counterpart of ai.api.url: configured explicitly, or derived
+     * from a Gemini generateContent URL. Null when the provider has none.
+     */
+    private String streamUrl() {
+        if (apiStreamUrl != null && !apiStreamUrl.isBlank()) {
+            return apiStreamUrl;
+        }
+        if (apiUrl.contains(":generateContent")) {
+            String url = apiUrl.replace(":generateContent", ":streamGenerateContent");
+            return url + (url.contains("?") ? "&" : "?") + "alt=sse";
+        }
+        return null;
+    }
+
+    /**
+     * Reads the Server-Sent Events stream (alt=sse): every event's data is one
+     * GenerateContentResponse whose parts carry the next slice of text. Returns
+     * the last usageMetadata seen (the final chunk carries the totals), or null.
+     */
+    private JsonNode readStream(InputStream body, ItineraryStreamParser parser) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        StringBuilder data = new StringBuilder();
+        JsonNode usageMetadata = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data:")) {
+                data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+            } else if (line.isEmpty() && data.length() > 0) {
+                usageMetadata = feedChunk(data.toString(), parser, usageMetadata);
+                data.setLength(0);
+            }
+        }
+        if (data.length() > 0) {
+            usageMetadata = feedChunk(data.toString(), parser, usageMetadata);
+        }
+        return usageMetadata;
+    }
+
+    private JsonNode feedChunk(String json, ItineraryStreamParser parser, JsonNode usageMetadata) throws IOException {
+        JsonNode chunk = objectMapper.readTree(json);
+        for (JsonNode part : chunk.path("candidates").path(0).path("content").path("parts")) {
+            if (part.hasNonNull("text")) {
+                parser.feed(part.get("text").asText());
+            }
+        }
+        return chunk.has("usageMetadata") ? chunk.get("usageMetadata") : usageMetadata;
+    }
+
     private String constructPrompt(String userRequest) {
         return "You are an expert travel agent. Analyze this request: \"" + userRequest + "\". "
                 + "Generate a premium, detailed JSON object with:"
@@ -114,45 +557,15 @@ public class LlmService {
 
     private com.travelapp.model.ParsedItinerary parseLlmResponse(String contentText) {
         try {
-            // Cleanup
-            contentText = contentText.replace("```json", "").replace("```", "").trim();
-
-            JsonNode responseJson = objectMapper.readTree(contentText);
-
-            String title = responseJson.has("title") ? responseJson.get("title").asText() : "New Itinerary";
-            String customerEmail = responseJson.has("customerEmail") ? responseJson.get("customerEmail").asText() : null;
-            String source = responseJson.has("source") ? responseJson.get("source").asText() : null;
-            String destination = responseJson.has("destination") ? responseJson.get("destination").asText() : null;
-
-            java.time.LocalDate travelDate = null;
-            if (responseJson.has("travelDate") && !responseJson.get("travelDate").isNull()) {
-                try {
-                    travelDate = java.time.LocalDate.parse(responseJson.get("travelDate").asText());
-                } catch (Exception e) {
-                    System.err.println("Failed to parse travelDate: " + e.getMessage());
-                }
-            }
-
-            JsonNode stepsArray = responseJson.has("steps") ? responseJson.get("steps") : null;
-
-            List<WorkflowStep> steps = new ArrayList<>();
-            if (stepsArray != null && stepsArray.isArray()) {
-                for (JsonNode node : stepsArray) {
-                    String name = node.has("name") ? node.get("name").asText() : "Unknown Step";
-                    String desc = node.has("description") ? node.get("description").asText() : "";
-
-                    steps.add(new WorkflowStep(
-                            "step-" + System.nanoTime() + "-" + steps.size(),
-                            name,
-                            desc,
-                            WorkflowStep.StepStatus.PENDING,
-                            false,
-                            new HashMap<>()));
-                }
+            // Same parser as the streaming path, fed the whole response at once
+            ItineraryStreamParser parser = new ItineraryStreamParser(objectMapper, step -> {
+            });
+            parser.feed(contentText);
+            com.travelapp.model.ParsedItinerary result = parser.result();
+            if (result == null) {
+                System.err.println("Failed to parse LLM response: incomplete JSON");
             }
-
-            return new com.travelapp.model.ParsedItinerary(title, customerEmail, steps, travelDate, source, destination);
-
+            return result;
         } catch (Exception e) {
             System.err.println("Failed to parse LLM response: " + e.getMessage());
             return null;
@@ -1,41 +1,299 @@
 package com.travelapp.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends customer emails through an in-process queue. Callers enqueue and
+ * return; drain loops on the mailExecutor empty the queue in batches so each
+ * batch shares one SMTP connection, and retry transient failures with backoff.
+ * The future returned for each email tells the caller whether it went out.
+ */
 @Service
 public class NotificationService {
 
     @Autowired(required = false)
     private JavaMailSender mailSender;
 
+    @Autowired
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Autowired
+    @Qualifier("mailExecutor")
+    private Executor mailExecutor;
+
     @Value("${spring.mail.username:noreply@travelapp.com}")
     private String fromEmail;
 
-    public void sendEmail(String to, String subject, String body) {
-        if (mailSender != null) {
+    @Value("${app.mail.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${app.mail.workers:2}")
+    private int workers = 2;
+
+    @Value("${app.mail.batch-size:20}")
+    private int batchSize = 20;
+
+    @Value("${app.mail.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${app.mail.retry-backoff:2s}")
+    private Duration retryBackoff = Duration.ofSeconds(2);
+
+    private BlockingQueue<OutgoingEmail> queue;
+    // Counts down as drain loops exit
+    private CountDownLatch activeWorkers = new CountDownLatch(0);
+    private volatile boolean running;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong sentInline = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        registerMeters();
+        if (mailSender == null) {
+            return;
+        }
+        running = true;
+        activeWorkers = new CountDownLatch(workers);
+        for (int i = 0; i < workers; i++) {
             try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setFrom(fromEmail);
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(body);
-                mailSender.send(message);
-                System.out.println("Email sent successfully to: " + to);
-            } catch (Exception e) {
-                System.err.println("Failed to send email: " + e.getMessage());
-                // Fallback to log
-                logEmail(to, subject, body);
+                mailExecutor.execute(() -> {
+                    try {
+                        drainQueue();
+                    } finally {
+                        activeWorkers.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // mailExecutor has fewer threads than app.mail.workers
+                System.err.println("Mail worker " + i + " could not start: " + e.getMessage());
+                activeWorkers.countDown();
             }
+        }
+    }
+
+    private void registerMeters() {
+        Gauge.builder("mail.queue.depth", this, NotificationService::getQueueDepth)
+                .description("Emails waiting for a sender thread")
+                .register(meterRegistry);
+        registerMessageCounter("sent", sent);
+        registerMessageCounter("failed", failed);
+        registerMessageCounter("retried", retries);
+        registerMessageCounter("sent_inline", sentInline);
+    }
+
+    private void registerMessageCounter(String result, AtomicLong count) {
+        FunctionCounter.builder("mail.messages", count, AtomicLong::get)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Latency of one SMTP send (a whole batch on one connection) by outcome.
+     */
+    private Timer sendTimer(String outcome) {
+        return Timer.builder("mail.send")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // Workers finish the queue before exiting
+        activeWorkers.await(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues the email. The future completes once the SMTP server accepted it (or,
+     * with no mail sender configured, once it was logged), and completes
+     * exceptionally when sending was given up.
+     */
+    public CompletableFuture<Void> sendEmail(String to, String subject, String body) {
+        if (mailSender != null) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(to);
+            message.setSubject(subject);
+            message.setText(body);
+            OutgoingEmail email = new OutgoingEmail(message);
+            if (!queue.offer(email)) {
+                // Queue full: apply backpressure by sending on the caller's thread
+                sentInline.incrementAndGet();
+                sendBatch(List.of(email));
+            }
+            return email.delivery;
         } else {
             System.out.println("JavaMailSender not configured. Logging email instead.");
             logEmail(to, subject, body);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void drainQueue() {
+        List<OutgoingEmail> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutgoingEmail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Mail worker error: " + e.getMessage());
+            } finally {
+                // No-op for emails already settled; the rest never went out
+                batch.forEach(email -> email.delivery.completeExceptionally(
+                        new MailSendException("Mail worker stopped before sending")));
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<OutgoingEmail> emails) {
+        List<OutgoingEmail> pending = new ArrayList<>(emails);
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            Timer.Sample sending = Timer.start(meterRegistry);
+            try {
+                mailSender.send(pending.stream().map(email -> email.message).toArray(SimpleMailMessage[]::new));
+                sending.stop(sendTimer("success"));
+                delivered(pending);
+                return;
+            } catch (MailSendException e) {
+                sending.stop(sendTimer("failure"));
+                // Only the messages that failed go round again
+                List<OutgoingEmail> failedMessages = failedMessages(e, pending);
+                List<OutgoingEmail> accepted = new ArrayList<>(pending);
+                accepted.removeAll(failedMessages);
+                delivered(accepted);
+                pending = failedMessages;
+                if (!retryable(e, attempt, pending)) {
+                    return;
+                }
+            } catch (MailException e) {
+                sending.stop(sendTimer("failure"));
+                if (!retryable(e, attempt, pending)) {
+                    return;
+                }
+            }
+
+            retries.addAndGet(pending.size());
+            try {
+                Thread.sleep(retryBackoff.toMillis() * attempt);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                giveUp(pending, "interrupted");
+                return;
+            }
+        }
+    }
+
+    private void delivered(List<OutgoingEmail> emails) {
+        sent.addAndGet(emails.size());
+        for (OutgoingEmail email : emails) {
+            System.out.println("Email sent successfully to: " + String.join(",", email.message.getTo()));
+            email.delivery.complete(null);
         }
     }
 
+    private boolean retryable(MailException e, int attempt, List<OutgoingEmail> pending) {
+        boolean permanent = e instanceof MailAuthenticationException
+                || e instanceof MailParseException
+                || e instanceof MailPreparationException;
+        if (permanent || attempt >= maxAttempts) {
+            giveUp(pending, e.getMessage());
+            return false;
+        }
+        System.err.println("Failed to send email (attempt " + attempt + "), retrying: " + e.getMessage());
+        return true;
+    }
+
+    private static List<OutgoingEmail> failedMessages(MailSendException e, List<OutgoingEmail> attempted) {
+        Map<Object, Exception> failures = e.getFailedMessages();
+        if (failures.isEmpty()) {
+            // Connection-level failure: nothing was sent
+            return attempted;
+        }
+        Map<Object, Boolean> failedSet = new IdentityHashMap<>();
+        failures.keySet().forEach(m -> failedSet.put(m, Boolean.TRUE));
+        List<OutgoingEmail> result = new ArrayList<>();
+        for (OutgoingEmail email : attempted) {
+            if (failedSet.containsKey(email.message)) {
+                result.add(email);
+            }
+        }
+        return result;
+    }
+
+    private void giveUp(List<OutgoingEmail> emails, String reason) {
+        System.err.println("Failed to send email: " + reason);
+        for (OutgoingEmail email : emails) {
+            failed.incrementAndGet();
+            // Fallback to log
+            SimpleMailMessage message = email.message;
+            logEmail(String.join(",", message.getTo()), message.getSubject(), message.getText());
+            email.delivery.completeExceptionally(new MailSendException("Email not sent: " + reason));
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", mailSender != null);
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("workers", activeWorkers.getCount());
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        stats.put("retries", retries.get());
+        stats.put("sentInline", sentInline.get());
+        return stats;
+    }
+
     private void logEmail(String to, String subject, String body) {
         System.out.println("===== SIMULATED EMAIL =====");
         System.out.println("To: " + to);
@@ -43,4 +301,13 @@ public class NotificationService {
         System.out.println("Body:\n" + body);
         System.out.println("===========================");
     }
+
+    private static final class OutgoingEmail {
+        final SimpleMailMessage message;
+        final CompletableFuture<Void> delivery = new CompletableFuture<>();
+
+        OutgoingEmail(SimpleMailMessage message) {
+            this.message = message;
+        }
+    }
 }
@@ -0,0 +1,101 @@
+package com.travelapp.service;
+
+import com.travelapp.model.WorkflowStep;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches compliance LLM responses keyed by a hash of the workflow steps and the
+ * active advisory set, so repeated GETs of an unchanged workflow skip the LLM.
+ */
+@Service
+public class ValidationCacheService {
+
+    @Value("${app.validation.cache.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public String computeKey(List<WorkflowStep> steps, String advisoryFingerprint) {
+        return computeKey(hashSteps(steps), advisoryFingerprint);
+    }
+
+    public String computeKey(String stepsHash, String advisoryFingerprint) {
+        return sha256(stepsHash + "|" + advisoryFingerprint);
+    }
+
+    public String hashSteps(List<WorkflowStep> steps) {
+        StringBuilder sb = new StringBuilder();
+        if (steps != null) {
+            for (WorkflowStep step : steps) {
+                // Only the inputs of the compliance check; warning/alternative are its outputs
+                sb.append(step.getId()).append('\u0001')
+                        .append(step.getName()).append('\u0001')
+                        .append(step.getDescription()).append('\u0002');
+            }
+        }
+        return sha256(sb.toString());
+    }
+
+    public String get(String key) {
+        String cached = entries.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return cached;
+    }
+
+    public void put(String key, String llmResponse) {
+        if (llmResponse == null) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            // Coarse bound: entries are cheap to rebuild, so drop everything rather than track recency
+            entries.clear();
+        }
+        entries.put(key, llmResponse);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        invalidations.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    static String sha256(String input) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.travelapp.service;
 
 import com.travelapp.model.BookingWorkflow;
 import com.travelapp.model.WorkflowStep;
+import org.bson.types.ObjectId;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -17,7 +18,7 @@ public class WorkflowCloneService {
         BookingWorkflow clone = new BookingWorkflow();
 
         // Basic fields
-        clone.setId(UUID.randomUUID().toString()); // New ID
+        clone.setId(new ObjectId().toHexString()); // New ID, same type as generated ones so _id stays comparable
         clone.setAgentId(original.getAgentId());
         clone.setCustomerName(original.getCustomerName());
         clone.setCustomerEmail(original.getCustomerEmail());
@@ -25,6 +26,7 @@ public class WorkflowCloneService {
         clone.setDestination(original.getDestination());
         clone.setTravelDate(original.getTravelDate());
         clone.setFinished(false); // Draft mode
+        clone.setVersion(0L); // Clones are bulk inserted, which does not initialise the version
 
         // Deep copy steps
         List<WorkflowStep> clonedSteps = new ArrayList<>();
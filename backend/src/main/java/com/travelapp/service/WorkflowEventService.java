@@ -0,0 +1,246 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.WorkflowEvent;
+import com.travelapp.repository.BookingWorkflowRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events for workflow changes, replacing client polling. A client
+ * can follow one workflow (each change pushes the full workflow) or all of them
+ * (each change pushes a small {@link WorkflowEvent}).
+ * <p>
+ * Sends run on a single-threaded executor: publishers never block on a slow
+ * client, and events for a workflow arrive in order.
+ */
+@Service
+public class WorkflowEventService {
+
+    static final String EVENT_NAME = "workflow";
+
+    @Autowired
+    private BookingWorkflowRepository workflowRepository;
+
+    @Autowired
+    private AdvisoryService advisoryService;
+
+    @Autowired
+    private AdvisoryVersionService advisoryVersion;
+
+    @Autowired
+    private WorkflowWriteService workflowWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("workflowEventExecutor")
+    private Executor eventExecutor;
+
+    @Autowired
+    @Qualifier("revalidationExecutor")
+    private Executor revalidationExecutor;
+
+    @Value("${app.events.emitter-timeout:30m}")
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+
+    private final Map<String, List<SseEmitter>> byWorkflow = new ConcurrentHashMap<>();
+    private final List<SseEmitter> allWorkflows = new CopyOnWriteArrayList<>();
+    private final Set<String> pendingRevalidation = ConcurrentHashMap.newKeySet();
+    private volatile long revalidatedVersion = -1;
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    public SseEmitter subscribe(String workflowId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        byWorkflow.computeIfAbsent(workflowId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        Runnable remove = () -> byWorkflow.computeIfPresent(workflowId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    public SseEmitter subscribeAll() {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        allWorkflows.add(emitter);
+        emitter.onCompletion(() -> allWorkflows.remove(emitter));
+        emitter.onTimeout(() -> allWorkflows.remove(emitter));
+        emitter.onError(e -> allWorkflows.remove(emitter));
+        return emitter;
+    }
+
+    public void publishCreated(BookingWorkflow workflow) {
+        publish(WorkflowEvent.Type.CREATED, workflow);
+    }
+
+    public void publishUpdated(BookingWorkflow workflow) {
+        publish(WorkflowEvent.Type.UPDATED, workflow);
+    }
+
+    private void publish(WorkflowEvent.Type type, BookingWorkflow workflow) {
+        List<SseEmitter> followers = workflow.getId() != null ? byWorkflow.get(workflow.getId()) : null;
+        boolean hasFollowers = followers != null && !followers.isEmpty();
+        if (!hasFollowers && allWorkflows.isEmpty()) {
+            return;
+        }
+        try {
+            // Serialize now: the publisher may keep mutating the workflow after this returns
+            String full = hasFollowers ? objectMapper.writeValueAsString(workflow) : null;
+            String summary = objectMapper.writeValueAsString(new WorkflowEvent(type, workflow));
+            dispatch(() -> {
+                if (full != null) {
+                    sendAll(followers, full);
+                }
+                sendAll(allWorkflows, summary);
+            });
+        } catch (Exception e) {
+            System.err.println("Failed to publish workflow event: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and weeds out clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${app.events.heartbeat-interval-ms:20000}")
+    public void heartbeat() {
+        if (byWorkflow.isEmpty() && allWorkflows.isEmpty()) {
+            return;
+        }
+        dispatch(() -> {
+            for (List<SseEmitter> emitters : byWorkflow.values()) {
+                sendComment(emitters);
+            }
+            sendComment(allWorkflows);
+        });
+    }
+
+    /**
+     * Queues a re-validation of the workflow off the request thread (e.g. after its
+     * steps were edited); changes are published when it runs.
+     */
+    public void requestRevalidation(String workflowId) {
+        if (workflowId != null) {
+            pendingRevalidation.add(workflowId);
+        }
+    }
+
+    /**
+     * Clients no longer poll, so re-validation is driven from here: queued workflows,
+     * plus every followed workflow once per advisory epoch. Changes are saved and published.
+     * <p>
+     * The work calls the LLM, so it runs on its own executor rather than holding up
+     * the shared scheduler thread (heartbeats, advisory polling, job eviction). A tick
+     * that finds the previous pass still running is skipped.
+     */
+    @Scheduled(fixedDelayString = "${app.events.revalidate-interval-ms:5000}")
+    public void revalidatePending() {
+        if (!revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            revalidationExecutor.execute(() -> {
+                try {
+                    revalidateNow();
+                } finally {
+                    revalidating.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            revalidating.set(false);
+            System.err.println("Re-validation executor rejected the pass: " + e.getMessage());
+        }
+    }
+
+    private void revalidateNow() {
+        long version = advisoryVersion.current();
+        Set<String> workflowIds = new HashSet<>();
+        if (version != revalidatedVersion) {
+            workflowIds.addAll(byWorkflow.keySet());
+        }
+        for (Iterator<String> it = pendingRevalidation.iterator(); it.hasNext(); ) {
+            workflowIds.add(it.next());
+            it.remove();
+        }
+
+        for (String workflowId : workflowIds) {
+            try {
+                BookingWorkflow workflow = workflowRepository.findById(workflowId).orElse(null);
+                if (workflow == null) {
+                    continue;
+                }
+                // Re-run on the latest copy if an agent saved in the meantime
+                BookingWorkflow saved = workflowWriter.applyAndSave(workflow, latest -> !latest.isFinished()
+                        && !advisoryService.isValidationCurrent(latest) && advisoryService.validateWorkflow(latest));
+                if (saved != null) {
+                    publishUpdated(saved);
+                }
+            } catch (Exception e) {
+                System.err.println("Re-validation failed for workflow " + workflowId + ": " + e.getMessage());
+            }
+        }
+        revalidatedVersion = version;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workflowsFollowed", byWorkflow.size());
+        stats.put("workflowSubscribers", byWorkflow.values().stream().mapToInt(List::size).sum());
+        stats.put("allWorkflowsSubscribers", allWorkflows.size());
+        stats.put("pendingRevalidation", pendingRevalidation.size());
+        stats.put("revalidating", revalidating.get());
+        return stats;
+    }
+
+    private void dispatch(Runnable send) {
+        try {
+            eventExecutor.execute(send);
+        } catch (RejectedExecutionException e) {
+            // Backlogged: drop the event; clients resync on reconnect or the next change
+            System.err.println("Workflow event queue full, dropping event");
+        }
+    }
+
+    private static void sendAll(List<SseEmitter> emitters, String json) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT_NAME).data(json, MediaType.APPLICATION_JSON));
+            } catch (Exception e) {
+                // Client went away; completing fires the removal callback
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private static void sendComment(List<SseEmitter> emitters) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.ParsedItinerary;
+import com.travelapp.model.WorkflowStep;
+import com.travelapp.repository.BookingWorkflowRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Turns a free-text itinerary request into a saved, validated booking workflow.
+ */
+@Service
+public class WorkflowIntakeService {
+
+    @Autowired
+    private WorkflowParserService parserService;
+
+    @Autowired
+    private AdvisoryService advisoryService;
+
+    @Autowired
+    private BookingWorkflowRepository repository;
+
+    @Autowired
+    private WorkflowEventService eventService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("streamParseExecutor")
+    private Executor streamParseExecutor;
+
+    @Value("${app.parser.stream-timeout:5m}")
+    private Duration streamTimeout = Duration.ofMinutes(5);
+
+    public BookingWorkflow createFromText(String plainText) {
+        return create(parserService.parseItinerary(plainText));
+    }
+
+    /**
+     * Streams the parse as Server-Sent Events: "field" ({name, value}) and "step"
+     * while the itinerary is being written, "reset" if the steps so far are to be
+     * discarded, then "workflow" with the saved booking, or "error".
+     */
+    public SseEmitter createFromTextStreaming(String plainText) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        try {
+            streamParseExecutor.execute(() -> {
+                try {
+                    ParsedItinerary result = parserService.parseItinerary(plainText, new ItineraryStreamParser.Listener() {
+                        @Override
+                        public void onField(String name, String value) {
+                            Map<String, String> field = new HashMap<>();
+                            field.put("name", name);
+                            field.put("value", value);
+                            send(emitter, "field", field);
+                        }
+
+                        @Override
+                        public void onStep(WorkflowStep step) {
+                            send(emitter, "step", step);
+                        }
+
+                        @Override
+                        public void onReset() {
+                            send(emitter, "reset", Map.of());
+                        }
+                    });
+                    send(emitter, "workflow", create(result));
+                    emitter.complete();
+                } catch (Exception e) {
+                    System.err.println("Streaming parse failed: " + e.getMessage());
+                    send(emitter, "error", Map.of("message", "Failed to create workflow"));
+                    emitter.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Busy: say so at once instead of queueing behind other streams
+            send(emitter, "error", Map.of("message", "Too many streaming parses in progress"));
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(objectMapper.writeValueAsString(data), MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            // Client went away; the parse still finishes and the workflow is still saved
+        }
+    }
+
+    private BookingWorkflow create(ParsedItinerary result) {
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setCustomerName(result.getTitle());
+        workflow.setCustomerEmail(result.getCustomerEmail());
+        workflow.setSteps(result.getSteps());
+        workflow.setTravelDate(result.getTravelDate());
+        workflow.setSource(result.getSource());
+        workflow.setDestination(result.getDestination());
+        workflow.setFinished(false);
+
+        // Validate immediately so warnings are persisted
+        advisoryService.validateWorkflow(workflow);
+
+        BookingWorkflow saved = repository.save(workflow);
+        eventService.publishCreated(saved);
+        return saved;
+    }
+}
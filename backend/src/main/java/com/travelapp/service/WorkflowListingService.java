@@ -0,0 +1,77 @@
+package com.travelapp.service;
+
+import com.travelapp.model.WorkflowFilter;
+import com.travelapp.model.WorkflowPage;
+import com.travelapp.model.WorkflowSummary;
+import com.travelapp.repository.BookingWorkflowRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset-paginated workflow listing. The cursor is an opaque token for the
+ * (createdAt, id) of the last row served, so deep pages cost the same as the
+ * first and concurrent inserts never shift rows between pages.
+ */
+@Service
+public class WorkflowListingService {
+
+    @Autowired
+    private BookingWorkflowRepository repository;
+
+    @Value("${app.workflows.page.default-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${app.workflows.page.max-size:200}")
+    private int maxPageSize = 200;
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not issued by this service
+     */
+    public WorkflowPage list(WorkflowFilter filter, String cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        Instant afterCreatedAt = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String decoded = decode(cursor);
+            int separator = decoded.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                afterCreatedAt = Instant.ofEpochMilli(Long.parseLong(decoded.substring(0, separator)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+            afterId = decoded.substring(separator + 1);
+        }
+
+        // One extra row tells us whether there is a next page
+        List<WorkflowSummary> rows = repository.findSummaries(filter, afterCreatedAt, afterId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new WorkflowPage(rows, null);
+        }
+        List<WorkflowSummary> items = rows.subList(0, pageSize);
+        WorkflowSummary last = items.get(pageSize - 1);
+        return new WorkflowPage(items, encode(last));
+    }
+
+    private static String encode(WorkflowSummary last) {
+        String raw = last.getCreatedAt().toEpochMilli() + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.travelapp.service;
+
+import com.travelapp.model.BookingWorkflow;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * One-off data fixes for documents written before a schema change.
+ */
+@Service
+public class WorkflowMaintenanceService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CountryResolver countryResolver;
+
+    /**
+     * Fills in country keys on workflows saved before they existed (or before the
+     * resolver last changed) so the impact scan's indexed query can find them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCountryKeys() {
+        Query stale = new Query(Criteria.where("countryKeyVersion").ne(CountryResolver.KEY_VERSION));
+        stale.fields().include("source").include("destination");
+
+        int updated = 0;
+        try (Stream<BookingWorkflow> workflows = mongoTemplate.stream(stale, BookingWorkflow.class)) {
+            for (BookingWorkflow workflow : (Iterable<BookingWorkflow>) workflows::iterator) {
+                Update update = new Update()
+                        .set("sourceCountry", countryResolver.resolve(workflow.getSource()))
+                        .set("destinationCountry", countryResolver.resolve(workflow.getDestination()))
+                        .set("countryKeyVersion", CountryResolver.KEY_VERSION);
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(workflow.getId())), update,
+                        BookingWorkflow.class);
+                updated++;
+            }
+        } catch (Exception e) {
+            System.err.println("Country key backfill failed: " + e.getMessage());
+        }
+        if (updated > 0) {
+            System.out.println("Backfilled country keys on " + updated + " workflows");
+        }
+    }
+
+    /**
+     * Stamps createdAt on workflows saved before it existed, so the keyset-paginated
+     * listing sees them. Generated ids carry their creation time; others get "now".
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCreatedAt() {
+        Query missing = new Query(Criteria.where("createdAt").exists(false));
+        missing.fields().include("_id");
+
+        int updated = 0;
+        try (Stream<BookingWorkflow> workflows = mongoTemplate.stream(missing, BookingWorkflow.class)) {
+            for (BookingWorkflow workflow : (Iterable<BookingWorkflow>) workflows::iterator) {
+                Instant createdAt = ObjectId.isValid(workflow.getId())
+                        ? new ObjectId(workflow.getId()).getDate().toInstant()
+                        : Instant.now();
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(workflow.getId())),
+                        new Update().set("createdAt", createdAt), BookingWorkflow.class);
+                updated++;
+            }
+        } catch (Exception e) {
+            System.err.println("createdAt backfill failed: " + e.getMessage());
+        }
+        if (updated > 0) {
+            System.out.println("Backfilled createdAt on " + updated + " workflows");
+        }
+    }
+
+    /**
+     * Starts workflows saved before optimistic locking at version 0; save() treats
+     * a null version as a new document and would try to insert it again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVersion() {
+        try {
+            long updated = mongoTemplate.updateMulti(new Query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L), BookingWorkflow.class).getModifiedCount();
+            if (updated > 0) {
+                System.out.println("Backfilled version on " + updated + " workflows");
+            }
+        } catch (Exception e) {
+            System.err.println("Version backfill failed: " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.travelapp.service;
 
+import com.travelapp.model.ParsedItinerary;
 import com.travelapp.model.WorkflowStep;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class WorkflowParserService {
@@ -15,76 +18,132 @@ public class WorkflowParserService {
     @Autowired
     private LlmService llmService;
 
-    public com.travelapp.model.ParsedItinerary parseItinerary(String text) {
-        // Try LLM first
-        com.travelapp.model.ParsedItinerary llmResult = llmService.generateItinerary(text);
+    @Autowired
+    private ItineraryScanner scanner;
+
+    // Scans at or above this confidence skip the LLM; above 1 disables the fast path
+    @Value("${app.parser.heuristic-confidence-threshold:0.9}")
+    private double heuristicConfidenceThreshold = 0.9;
+
+    private final AtomicLong heuristicParses = new AtomicLong();
+    private final AtomicLong llmParses = new AtomicLong();
+    private final AtomicLong fallbackParses = new AtomicLong();
+
+    public ParsedItinerary parseItinerary(String text) {
+        ItineraryScanner.Scan scan = scanner.scan(text);
+
+        // Simple requests the scanner fully understands are answered without waiting on the LLM
+        if (scan.getConfidence() >= heuristicConfidenceThreshold) {
+            heuristicParses.incrementAndGet();
+            return fromScan(text, scan);
+        }
+
+        ParsedItinerary llmResult = llmService.generateItinerary(text);
         if (llmResult != null && llmResult.getSteps() != null && !llmResult.getSteps().isEmpty()) {
+            llmParses.incrementAndGet();
             return llmResult;
         }
 
         // Fallback to Heuristics if LLM fails or no key
-        List<WorkflowStep> steps = new ArrayList<>();
-        String lowerText = text.toLowerCase();
+        fallbackParses.incrementAndGet();
+        return fromScan(text, scan);
+    }
 
-        // Generate a basic title for fallback
-        String title = "Itinerary Request";
-        if (text.length() > 30) {
-            title = text.substring(0, 27) + "...";
-        } else if (!text.isEmpty()) {
-            title = text;
+    /**
+     * Same decisions as {@link #parseItinerary(String)}, reporting steps to the
+     * listener as they become known: all at once on the local paths, one by one
+     * while the LLM writes them.
+     */
+    public ParsedItinerary parseItinerary(String text, ItineraryStreamParser.Listener listener) {
+        ItineraryScanner.Scan scan = scanner.scan(text);
+        if (scan.getConfidence() >= heuristicConfidenceThreshold) {
+            heuristicParses.incrementAndGet();
+            return report(fromScan(text, scan), listener);
         }
 
-        // Heuristic 1: Detect Flight request
-        if (lowerText.contains("flight") || lowerText.contains("fly")) {
-            steps.add(new WorkflowStep(
-                    "step-" + System.nanoTime() + "-1",
-                    "Flight Booking",
-                    extractDetails(text, "flight to ([a-zA-Z\\s]+)", "Book flight"),
-                    WorkflowStep.StepStatus.PENDING,
-                    false,
-                    new java.util.HashMap<>()));
+        boolean[] streamed = { false };
+        ParsedItinerary llmResult = llmService.streamItinerary(text, new ItineraryStreamParser.Listener() {
+            @Override
+            public void onField(String name, String value) {
+                listener.onField(name, value);
+            }
+
+            @Override
+            public void onStep(WorkflowStep step) {
+                streamed[0] = true;
+                listener.onStep(step);
+            }
+        });
+        if (llmResult != null && llmResult.getSteps() != null && !llmResult.getSteps().isEmpty()) {
+            llmParses.incrementAndGet();
+            return llmResult;
         }
 
-        // Heuristic 2: Detect Hotel request
-        if (lowerText.contains("hotel") || lowerText.contains("stay")) {
-            steps.add(new WorkflowStep(
-                    "step-" + System.nanoTime() + "-2",
-                    "Hotel Booking",
-                    extractDetails(text, "hotel in ([a-zA-Z\\s]+)", "Book hotel accommodation"),
-                    WorkflowStep.StepStatus.PENDING,
-                    false,
-                    new java.util.HashMap<>()));
+        fallbackParses.incrementAndGet();
+        if (streamed[0]) {
+            // The stream broke off after some steps; the fallback replaces them
+            listener.onReset();
         }
+        return report(fromScan(text, scan), listener);
+    }
 
-        // Heuristic 3: Detect Cab/Transfer
-        if (lowerText.contains("cab") || lowerText.contains("taxi") || lowerText.contains("transfer")) {
-            steps.add(new WorkflowStep(
-                    "step-" + System.nanoTime() + "-3",
-                    "Transfer Arrangement",
-                    "Arrange local transportation",
-                    WorkflowStep.StepStatus.PENDING,
-                    false,
-                    new java.util.HashMap<>()));
+    private static ParsedItinerary report(ParsedItinerary itinerary, ItineraryStreamParser.Listener listener) {
+        itinerary.getSteps().forEach(listener::onStep);
+        return itinerary;
+    }
+
+    private static ParsedItinerary fromScan(String text, ItineraryScanner.Scan scan) {
+        List<WorkflowStep> steps = new ArrayList<>();
+        String destination = scan.getDestination();
+
+        if (scan.getIntents().contains(ItineraryScanner.Intent.FLIGHT)) {
+            StringBuilder description = new StringBuilder("Book flight");
+            if (scan.getSource() != null) {
+                description.append(" from ").append(scan.getSource());
+            }
+            if (destination != null) {
+                description.append(" to ").append(destination);
+            }
+            steps.add(step(steps, "Flight Booking", description.toString()));
+        }
+
+        if (scan.getIntents().contains(ItineraryScanner.Intent.HOTEL)) {
+            String stayPlace = scan.getStayPlace();
+            steps.add(step(steps, "Hotel Booking",
+                    stayPlace != null ? "Book hotel accommodation in " + stayPlace : "Book hotel accommodation"));
+        }
+
+        if (scan.getIntents().contains(ItineraryScanner.Intent.TRANSFER)) {
+            steps.add(step(steps, "Transfer Arrangement", "Arrange local transportation"));
         }
 
         // Always add Payment and Finalize at the end
-        steps.add(new WorkflowStep(
-                "step-" + System.nanoTime() + "-99",
-                "Payment & Finalize",
-                "Complete payment and send itinerary",
-                WorkflowStep.StepStatus.PENDING,
-                false,
-                new java.util.HashMap<>()));
-
-        return new com.travelapp.model.ParsedItinerary(title, null, steps, null, null, null);
-    }
+        steps.add(step(steps, "Payment & Finalize", "Complete payment and send itinerary"));
 
-    private String extractDetails(String text, String regex, String defaultValue) {
-        Pattern pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(text);
-        if (matcher.find()) {
-            return defaultValue + " " + matcher.group(0); // e.g. "Book flight flight to London"
+        // Generate a basic title
+        String title = "Itinerary Request";
+        if (destination != null) {
+            title = "Trip to " + destination;
+        } else if (text.length() > 30) {
+            title = text.substring(0, 27) + "...";
+        } else if (!text.isEmpty()) {
+            title = text;
         }
-        return defaultValue;
+
+        return new ParsedItinerary(title, scan.getEmail(), steps, scan.getTravelDate(), scan.getSource(), destination);
+    }
+
+    private static WorkflowStep step(List<WorkflowStep> steps, String name, String description) {
+        return new WorkflowStep("step-" + System.nanoTime() + "-" + steps.size(), name, description,
+                WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("heuristicParses", heuristicParses.get());
+        stats.put("llmParses", llmParses.get());
+        stats.put("fallbackParses", fallbackParses.get());
+        stats.put("heuristicConfidenceThreshold", heuristicConfidenceThreshold);
+        return stats;
     }
 }
@@ -0,0 +1,283 @@
+package com.travelapp.service;
+
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.WorkflowRevision;
+import com.travelapp.model.WorkflowStep;
+import com.travelapp.repository.BookingWorkflowRepository;
+import com.travelapp.repository.WorkflowRevisionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Read-modify-write for server-side writers (validation, customer responses).
+ * Their changes are recomputed from the workflow itself, so when someone else
+ * saved first the change is simply re-applied to the latest copy; the other
+ * writer's step edits are kept instead of being overwritten.
+ */
+@Service
+public class WorkflowWriteService {
+
+    @Autowired
+    private BookingWorkflowRepository repository;
+
+    @Autowired
+    private WorkflowRevisionRepository revisionRepository;
+
+    @Value("${app.workflows.write-retries:3}")
+    private int writeRetries = 3;
+
+    /**
+     * Applies the change and saves. The change returns false when there is nothing
+     * to write, in which case null is returned. Throws
+     * OptimisticLockingFailureException once the retries are used up.
+     */
+    public BookingWorkflow applyAndSave(BookingWorkflow workflow, Predicate<BookingWorkflow> change) {
+        for (int attempt = 0; ; attempt++) {
+            if (!change.test(workflow)) {
+                return null;
+            }
+            try {
+                return repository.save(workflow);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= writeRetries) {
+                    throw e;
+                }
+                workflow = repository.findById(workflow.getId()).orElse(null);
+                if (workflow == null) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves a whole workflow sent by a client (PUT). When someone saved first, the
+     * client's changes are merged field by field into the latest copy, using the
+     * revision the client loaded as the common base: fields only one side changed
+     * take that side's value. When both changed the same field differently, or the
+     * base revision has expired and any field differs, the
+     * OptimisticLockingFailureException is rethrown. Returns null when the workflow
+     * was deleted in the meantime.
+     */
+    public BookingWorkflow saveClientCopy(BookingWorkflow copy) {
+        try {
+            return repository.save(copy);
+        } catch (OptimisticLockingFailureException e) {
+            BookingWorkflow latest = repository.findById(copy.getId()).orElse(null);
+            if (latest == null) {
+                return null;
+            }
+            BookingWorkflow base = revisionRepository.findById(WorkflowRevision.key(copy.getId(), copy.getVersion()))
+                    .map(WorkflowRevision::toWorkflow)
+                    .orElse(null);
+            return applyAndSave(latest, w -> {
+                if (!merge(base, copy, w)) {
+                    throw e;
+                }
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Merges the client's copy into the latest one in place. A null base means the
+     * client's revision is unknown, so every field must already agree (step order
+     * aside). Returns false, leaving the latest copy untouched, on a conflict.
+     */
+    private static boolean merge(BookingWorkflow base, BookingWorkflow mine, BookingWorkflow theirs) {
+        boolean known = base != null;
+        try {
+            String agentId = pick(known, known ? base.getAgentId() : null, mine.getAgentId(), theirs.getAgentId());
+            String customerName = pick(known, known ? base.getCustomerName() : null,
+                    mine.getCustomerName(), theirs.getCustomerName());
+            String customerEmail = pick(known, known ? base.getCustomerEmail() : null,
+                    mine.getCustomerEmail(), theirs.getCustomerEmail());
+            String source = pick(known, known ? base.getSource() : null, mine.getSource(), theirs.getSource());
+            String destination = pick(known, known ? base.getDestination() : null,
+                    mine.getDestination(), theirs.getDestination());
+            LocalDate travelDate = pick(known, known ? base.getTravelDate() : null,
+                    mine.getTravelDate(), theirs.getTravelDate());
+            boolean finished = pick(known, known ? base.isFinished() : null, mine.isFinished(), theirs.isFinished());
+            List<WorkflowStep> steps = mergeSteps(known ? stepsOf(base) : null, stepsOf(mine), stepsOf(theirs));
+
+            theirs.setAgentId(agentId);
+            theirs.setCustomerName(customerName);
+            theirs.setCustomerEmail(customerEmail);
+            theirs.setSource(source);
+            theirs.setDestination(destination);
+            theirs.setTravelDate(travelDate);
+            theirs.setFinished(finished);
+            theirs.setSteps(steps);
+            return true;
+        } catch (MergeConflict conflict) {
+            return false;
+        }
+    }
+
+    private static List<WorkflowStep> mergeSteps(List<WorkflowStep> base, List<WorkflowStep> mine,
+            List<WorkflowStep> theirs) {
+        boolean known = base != null;
+        Map<String, WorkflowStep> baseById = byId(known ? base : List.of());
+        Map<String, WorkflowStep> mineById = byId(mine);
+        Map<String, WorkflowStep> theirsById = byId(theirs);
+
+        Set<String> ids = new LinkedHashSet<>(mineById.keySet());
+        ids.addAll(theirsById.keySet());
+        Map<String, WorkflowStep> merged = new HashMap<>();
+        for (String id : ids) {
+            WorkflowStep b = baseById.get(id);
+            WorkflowStep m = mineById.get(id);
+            WorkflowStep t = theirsById.get(id);
+            if (m != null && t != null) {
+                merged.put(id, mergeStep(b, m, t));
+                continue;
+            }
+            WorkflowStep present = m != null ? m : t;
+            if (!known) {
+                throw new MergeConflict();
+            }
+            if (b == null) {
+                // Added by one side only
+                merged.put(id, present);
+            } else if (!sameStep(b, present)) {
+                // Deleted by one side while the other edited it
+                throw new MergeConflict();
+            }
+        }
+
+        List<String> mineOrder = idsOf(mine, merged.keySet());
+        List<String> theirsOrder = idsOf(theirs, merged.keySet());
+        Set<String> shared = new HashSet<>(mineOrder);
+        shared.retainAll(theirsOrder);
+        List<String> mineShared = mineOrder.stream().filter(shared::contains).toList();
+        List<String> theirsShared = theirsOrder.stream().filter(shared::contains).toList();
+
+        boolean mineLeads;
+        if (mineShared.equals(theirsShared) || !known) {
+            mineLeads = true;
+        } else {
+            List<String> baseShared = idsOf(base, shared);
+            if (theirsShared.equals(baseShared)) {
+                mineLeads = true;
+            } else if (mineShared.equals(baseShared)) {
+                mineLeads = false;
+            } else {
+                // Both sides reordered differently
+                throw new MergeConflict();
+            }
+        }
+
+        List<String> order = new ArrayList<>(mineLeads ? mineOrder : theirsOrder);
+        List<String> other = mineLeads ? theirsOrder : mineOrder;
+        for (int i = 0; i < other.size(); i++) {
+            String id = other.get(i);
+            if (order.contains(id)) {
+                continue;
+            }
+            // Steps only the other side added go right after the step they followed there
+            int at = 0;
+            for (int j = i - 1; j >= 0; j--) {
+                int previous = order.indexOf(other.get(j));
+                if (previous >= 0) {
+                    at = previous + 1;
+                    break;
+                }
+            }
+            order.add(at, id);
+        }
+        return new ArrayList<>(order.stream().map(merged::get).toList());
+    }
+
+    private static WorkflowStep mergeStep(WorkflowStep base, WorkflowStep mine, WorkflowStep theirs) {
+        boolean known = base != null;
+        WorkflowStep step = new WorkflowStep(
+                theirs.getId(),
+                pick(known, known ? base.getName() : null, mine.getName(), theirs.getName()),
+                pick(known, known ? base.getDescription() : null, mine.getDescription(), theirs.getDescription()),
+                pick(known, known ? base.getStatus() : null, mine.getStatus(), theirs.getStatus()),
+                pick(known, known ? base.isCompleted() : null, mine.isCompleted(), theirs.isCompleted()),
+                null,
+                pick(known, known ? base.getWarning() : null, mine.getWarning(), theirs.getWarning()),
+                pick(known, known ? base.getAlternative() : null, mine.getAlternative(), theirs.getAlternative()));
+
+        // Metadata merges key by key, like a PATCH
+        Map<String, Object> baseMetadata = known ? metadataOf(base) : Map.of();
+        Map<String, Object> mineMetadata = metadataOf(mine);
+        Map<String, Object> theirsMetadata = metadataOf(theirs);
+        Set<String> keys = new LinkedHashSet<>(theirsMetadata.keySet());
+        keys.addAll(mineMetadata.keySet());
+        for (String key : keys) {
+            Object value = pick(known, baseMetadata.get(key), mineMetadata.get(key), theirsMetadata.get(key));
+            if (value != null) {
+                step.getMetadata().put(key, value);
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Three-way pick of one field. Without a known base the two sides must agree.
+     */
+    private static <T> T pick(boolean known, T base, T mine, T theirs) {
+        if (Objects.equals(mine, theirs)) {
+            return theirs;
+        }
+        if (known && Objects.equals(mine, base)) {
+            return theirs;
+        }
+        if (known && Objects.equals(theirs, base)) {
+            return mine;
+        }
+        throw new MergeConflict();
+    }
+
+    private static boolean sameStep(WorkflowStep a, WorkflowStep b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && a.getStatus() == b.getStatus()
+                && a.isCompleted() == b.isCompleted()
+                && Objects.equals(metadataOf(a), metadataOf(b))
+                && Objects.equals(a.getWarning(), b.getWarning())
+                && Objects.equals(a.getAlternative(), b.getAlternative());
+    }
+
+    private static List<WorkflowStep> stepsOf(BookingWorkflow workflow) {
+        return workflow.getSteps() != null ? workflow.getSteps() : List.of();
+    }
+
+    private static Map<String, Object> metadataOf(WorkflowStep step) {
+        return step.getMetadata() != null ? step.getMetadata() : Map.of();
+    }
+
+    private static Map<String, WorkflowStep> byId(List<WorkflowStep> steps) {
+        Map<String, WorkflowStep> byId = new HashMap<>();
+        for (WorkflowStep step : steps) {
+            byId.put(step.getId(), step);
+        }
+        return byId;
+    }
+
+    private static List<String> idsOf(List<WorkflowStep> steps, Set<String> keep) {
+        return steps.stream().map(WorkflowStep::getId).filter(keep::contains).toList();
+    }
+
+    /** Both sides changed the same thing; unwinds the merge without a stack trace. */
+    private static class MergeConflict extends RuntimeException {
+        MergeConflict() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.travelapp.controller;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.model.AdvisoryImpactJob;
+import com.travelapp.repository.AdvisoryImpactRecordRepository;
+import com.travelapp.repository.AdvisoryRepository;
+import com.travelapp.service.AdvisoryJobService;
+import com.travelapp.service.AdvisoryRegistry;
+import com.travelapp.service.AdvisoryVersionService;
+import com.travelapp.service.ValidationCacheService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AdvisoryControllerTest {
+
+    @Mock
+    private AdvisoryRepository repository;
+
+    @Mock
+    private AdvisoryImpactRecordRepository impactRecordRepository;
+
+    @Mock
+    private AdvisoryJobService jobService;
+
+    @Mock
+    private ValidationCacheService validationCache;
+
+    @Mock
+    private AdvisoryRegistry advisoryRegistry;
+
+    @Mock
+    private AdvisoryVersionService advisoryVersion;
+
+    @InjectMocks
+    private AdvisoryController controller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jobService.submit(any())).thenAnswer(inv -> new AdvisoryImpactJob("job-1", inv.<Advisory>getArgument(0).getId()));
+    }
+
+    @Test
+    void createAdvisory_ShouldAcceptWithTheJobLocation_AndPublishTheNewAdvisory() {
+        // Arrange
+        Advisory posted = new Advisory("India", "China", "HIGH", "Ban");
+        when(repository.insertIfAbsent(posted)).thenAnswer(inv -> {
+            posted.setId("adv-1");
+            return null;
+        });
+
+        // Act
+        ResponseEntity<AdvisoryImpactJob> response = controller.createAdvisory(posted);
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(URI.create("/api/advisories/jobs/job-1"), response.getHeaders().getLocation());
+        assertEquals("job-1", response.getBody().getId());
+        verify(advisoryRegistry).register(posted);
+        verify(validationCache).invalidateAll();
+        verify(advisoryVersion).bump();
+        verify(jobService).submit(posted);
+    }
+
+    @Test
+    void createAdvisory_ShouldJoinTheExistingJob_WhenTheSameAdvisoryIsPostedAgain() {
+        // Arrange
+        Advisory known = new Advisory("India", "China", "HIGH", "Ban");
+        known.setId("adv-1");
+        Advisory posted = new Advisory("india ", "China", "high", "Ban");
+        when(advisoryRegistry.findEquivalent(posted)).thenReturn(known);
+
+        // Act
+        ResponseEntity<AdvisoryImpactJob> response = controller.createAdvisory(posted);
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertNotNull(response.getHeaders().getLocation());
+        verify(repository, never()).insertIfAbsent(any());
+        verify(advisoryVersion, never()).bump();
+        verify(jobService).submit(known);
+    }
+
+    @Test
+    void getJob_ShouldReturnNotFound_ForAnUnknownOrEvictedJob() {
+        // Act & Assert
+        assertEquals(HttpStatus.NOT_FOUND, controller.getJob("missing").getStatusCode());
+    }
+
+    @Test
+    void createAdvisory_ShouldReuseTheAdvisory_WhenAnotherInstanceInsertedItFirst() {
+        // Arrange
+        Advisory posted = new Advisory("India", "China", "HIGH", "Ban");
+        Advisory stored = new Advisory("India", "China", "HIGH", "Ban");
+        stored.setId("adv-1");
+        when(repository.insertIfAbsent(posted)).thenReturn(stored);
+
+        // Act
+        ResponseEntity<AdvisoryImpactJob> response = controller.createAdvisory(posted);
+
+        // Assert: one document, and only its creator bumps the epoch
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("adv-1", response.getBody().getAdvisoryId());
+        verify(repository, never()).save(any());
+        verify(advisoryVersion, never()).bump();
+        verify(advisoryRegistry).register(stored);
+        verify(jobService).submit(stored);
+    }
+}
@@ -0,0 +1,160 @@
+package com.travelapp.controller;
+
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.StepPatch;
+import com.travelapp.model.WorkflowStep;
+import com.travelapp.repository.BookingWorkflowRepository;
+import com.travelapp.repository.WorkflowRevisionRepository;
+import com.travelapp.service.WorkflowEventService;
+import com.travelapp.service.WorkflowWriteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WorkflowControllerTest {
+
+    @Mock
+    private BookingWorkflowRepository repository;
+
+    @Mock
+    private WorkflowRevisionRepository revisionRepository;
+
+    @Mock
+    private WorkflowEventService eventService;
+
+    @Spy
+    private WorkflowWriteService workflowWriter = new WorkflowWriteService();
+
+    @InjectMocks
+    private WorkflowController controller;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(workflowWriter, "repository", repository);
+        ReflectionTestUtils.setField(workflowWriter, "revisionRepository", revisionRepository);
+    }
+
+    @Test
+    void updateWorkflow_ShouldSavePublishAndRevalidate() {
+        // Arrange
+        BookingWorkflow workflow = workflow(3L, "Flight Delhi to Paris");
+        when(repository.save(workflow)).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        ResponseEntity<BookingWorkflow> response = controller.updateWorkflow("wf1", workflow);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(workflow, response.getBody());
+        verify(eventService).publishUpdated(workflow);
+        verify(eventService).requestRevalidation("wf1");
+    }
+
+    @Test
+    void updateWorkflow_ShouldRejectACopyWithoutVersion() {
+        // Act
+        ResponseEntity<BookingWorkflow> response = controller.updateWorkflow("wf1", new BookingWorkflow());
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void updateWorkflow_ShouldReturnConflictWithTheCurrentCopy_WhenEditsClash() {
+        // Arrange
+        BookingWorkflow stale = workflow(3L, "Flight Delhi to Rome");
+        BookingWorkflow current = workflow(4L, "Flight Delhi to Paris");
+        when(repository.save(stale)).thenThrow(new OptimisticLockingFailureException("version 3 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(current));
+
+        // Act
+        ResponseEntity<BookingWorkflow> response = controller.updateWorkflow("wf1", stale);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertSame(current, response.getBody());
+        verify(repository, never()).save(current);
+        verify(eventService, never()).publishUpdated(any());
+    }
+
+    @Test
+    void updateStep_ShouldReturnThePatchedStep_AndPublishWithoutRevalidating() {
+        // Arrange
+        BookingWorkflow patched = workflow(4L, "Flight Delhi to Paris");
+        patched.getSteps().get(0).setStatus(WorkflowStep.StepStatus.COMPLETED);
+        StepPatch patch = new StepPatch();
+        patch.setStatus(WorkflowStep.StepStatus.COMPLETED);
+        when(repository.updateStep("wf1", "s1", patch)).thenReturn(patched);
+
+        // Act
+        ResponseEntity<WorkflowStep> response = controller.updateStep("wf1", "s1", patch);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(WorkflowStep.StepStatus.COMPLETED, response.getBody().getStatus());
+        verify(eventService).publishUpdated(patched);
+        verify(eventService, never()).requestRevalidation(any());
+    }
+
+    @Test
+    void updateStep_ShouldRejectEmptyPatchesAndMetadataKeysThatWouldEscapeTheStep() {
+        // Arrange
+        StepPatch empty = new StepPatch();
+
+        // Act & Assert
+        assertEquals(HttpStatus.BAD_REQUEST, controller.updateStep("wf1", "s1", empty).getStatusCode());
+        for (String key : new String[] { "", "a.b", "$set", "$" }) {
+            StepPatch patch = new StepPatch();
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put(key, "x");
+            patch.setMetadata(metadata);
+            assertEquals(HttpStatus.BAD_REQUEST, controller.updateStep("wf1", "s1", patch).getStatusCode(),
+                    "key '" + key + "'");
+        }
+        verify(repository, never()).updateStep(any(), any(), any());
+    }
+
+    @Test
+    void updateStep_ShouldReturnNotFound_ForAnUnknownWorkflowOrStep() {
+        // Arrange
+        StepPatch patch = new StepPatch();
+        patch.setWarning("");
+        when(repository.updateStep("wf1", "missing", patch)).thenReturn(null);
+
+        // Act
+        ResponseEntity<WorkflowStep> response = controller.updateStep("wf1", "missing", patch);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(eventService, never()).publishUpdated(any());
+    }
+
+    private static BookingWorkflow workflow(long version, String stepName) {
+        List<WorkflowStep> steps = new ArrayList<>();
+        steps.add(new WorkflowStep("s1", stepName, "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>()));
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setId("wf1");
+        workflow.setVersion(version);
+        workflow.setSteps(steps);
+        return workflow;
+    }
+}
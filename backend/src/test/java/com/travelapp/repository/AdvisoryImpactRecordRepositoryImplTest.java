@@ -0,0 +1,89 @@
+package com.travelapp.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.travelapp.model.AdvisoryImpactRecord;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AdvisoryImpactRecordRepositoryImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulk;
+
+    @InjectMocks
+    private AdvisoryImpactRecordRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AdvisoryImpactRecord.class)).thenReturn(bulk);
+    }
+
+    @Test
+    void claim_ShouldUpsertOnlyUnfinishedUnleasedRecords_AndCreateClaimedOnes() {
+        // Act
+        Set<String> claimed = repository.claim("adv-1", List.of("wf-1"), Duration.ofMinutes(30));
+
+        // Assert
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk).upsert(query.capture(), update.capture());
+        Document filter = query.getValue().getQueryObject();
+        assertEquals("adv-1:wf-1", filter.get("_id"));
+        assertEquals(new Document("$ne", "NOTIFIED"), filter.get("stage"));
+        assertTrue(filter.containsKey("$or"), "claimable only when no lease is held or it expired");
+        Document changes = update.getValue().getUpdateObject();
+        assertTrue(changes.get("$set", Document.class).containsKey("claimedUntil"));
+        assertEquals("CLAIMED", changes.get("$setOnInsert", Document.class).get("stage"));
+        assertEquals("wf-1", changes.get("$setOnInsert", Document.class).get("workflowId"));
+        assertEquals(Set.of("wf-1"), claimed);
+    }
+
+    @Test
+    void claim_ShouldLeaveOutRecordsWhoseUpsertCollided() {
+        // Arrange: wf-2 is finished or leased elsewhere, so its upsert hit the existing _id
+        BulkOperationException collided = mock(BulkOperationException.class);
+        when(collided.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)));
+        when(bulk.execute()).thenThrow(collided);
+
+        // Act
+        Set<String> claimed = repository.claim("adv-1", List.of("wf-1", "wf-2", "wf-3"), Duration.ofMinutes(30));
+
+        // Assert
+        verify(bulk, times(3)).upsert(any(Query.class), any(Update.class));
+        assertEquals(Set.of("wf-1", "wf-3"), claimed);
+    }
+
+    @Test
+    void claim_ShouldNotTouchTheStore_ForAnEmptyBatch() {
+        // Act
+        Set<String> claimed = repository.claim("adv-1", List.of(), Duration.ofMinutes(30));
+
+        // Assert
+        assertTrue(claimed.isEmpty());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(AdvisoryImpactRecord.class));
+    }
+}
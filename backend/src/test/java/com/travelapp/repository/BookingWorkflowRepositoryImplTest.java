@@ -0,0 +1,134 @@
+package com.travelapp.repository;
+
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.StepPatch;
+import com.travelapp.model.WorkflowStep;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookingWorkflowRepositoryImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private WorkflowRevisionRepository revisionRepository;
+
+    @InjectMocks
+    private BookingWorkflowRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void updateStep_ShouldWriteOnlyThePatchedFieldsOfTheMatchedStep_AndBumpTheVersion() {
+        // Arrange
+        StepPatch patch = new StepPatch();
+        patch.setStatus(WorkflowStep.StepStatus.COMPLETED);
+        patch.setCompleted(true);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("flightNumber", "AI-101");
+        metadata.put("seat", null);
+        patch.setMetadata(metadata);
+
+        // Act
+        repository.updateStep("wf1", "s1", patch);
+
+        // Assert
+        Query query = captureQuery();
+        assertEquals("wf1", query.getQueryObject().get("_id"));
+        assertEquals("s1", query.getQueryObject().get("steps.id"));
+
+        Document update = captureUpdate().getUpdateObject();
+        assertEquals(new Document("version", 1), update.get("$inc"));
+        Document set = update.get("$set", Document.class);
+        assertEquals(WorkflowStep.StepStatus.COMPLETED, set.get("steps.$.status"));
+        assertEquals(true, set.get("steps.$.isCompleted"));
+        assertEquals("AI-101", set.get("steps.$.metadata.flightNumber"));
+        assertFalse(set.containsKey("steps.$.warning"));
+        // A null metadata value removes the key
+        assertTrue(update.get("$unset", Document.class).containsKey("steps.$.metadata.seat"));
+    }
+
+    @Test
+    void updateStep_ShouldUnsetTheWarning_WhenPatchedWithAnEmptyOne() {
+        // Arrange
+        StepPatch patch = new StepPatch();
+        patch.setWarning("");
+
+        // Act
+        repository.updateStep("wf1", "s1", patch);
+
+        // Assert
+        Document update = captureUpdate().getUpdateObject();
+        assertTrue(update.get("$unset", Document.class).containsKey("steps.$.warning"));
+        assertNull(update.get("$set"));
+        assertEquals(new Document("version", 1), update.get("$inc"));
+    }
+
+    @Test
+    void updateStep_ShouldReturnNull_WhenNoWorkflowHasTheStep() {
+        // Arrange
+        StepPatch patch = new StepPatch();
+        patch.setWarning("Check visa");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(BookingWorkflow.class))).thenReturn(null);
+
+        // Act & Assert
+        assertNull(repository.updateStep("wf1", "missing", patch));
+        verify(revisionRepository, never()).record(any());
+    }
+
+    @Test
+    void updateStep_ShouldRecordThePatchedVersion_AsAMergeBase() {
+        // Arrange
+        StepPatch patch = new StepPatch();
+        patch.setWarning("Check visa");
+        BookingWorkflow patched = new BookingWorkflow();
+        patched.setId("wf1");
+        patched.setVersion(3L);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(BookingWorkflow.class))).thenReturn(patched);
+
+        // Act
+        repository.updateStep("wf1", "s1", patch);
+
+        // Assert
+        verify(revisionRepository).record(patched);
+    }
+
+    private Query captureQuery() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(captor.capture(), any(Update.class), any(FindAndModifyOptions.class),
+                eq(BookingWorkflow.class));
+        return captor.getValue();
+    }
+
+    private Update captureUpdate() {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), captor.capture(), options.capture(), eq(BookingWorkflow.class));
+        // The caller gets the document as patched, not as it was
+        assertTrue(options.getValue().isReturnNew());
+        return captor.getValue();
+    }
+}
@@ -1,22 +1,38 @@
 package com.travelapp.service;
 
 import com.travelapp.model.Advisory;
+import com.travelapp.model.AdvisoryImpactJob;
 import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.BulkWriteFailure;
 import com.travelapp.model.WorkflowStep;
+import com.travelapp.model.AdvisoryImpactRecord;
+import com.travelapp.repository.AdvisoryImpactRecordRepository;
 import com.travelapp.repository.BookingWorkflowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -31,12 +47,43 @@ class AdvisoryImpactServiceTest {
     @Mock
     private AdvisoryService advisoryService;
 
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private WorkflowEventService eventService;
+
+    @Mock
+    private AdvisoryImpactRecordRepository recordRepository;
+
+    @Spy
+    private CountryResolver countryResolver = new CountryResolver(new Gazetteer());
+
     @InjectMocks
     private AdvisoryImpactService impactService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // Run the fan-out inline so assertions see its effects
+        ReflectionTestUtils.setField(impactService, "fanoutExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(impactService, "meterRegistry", meterRegistry);
+        // Every booking is free to claim, and its fresh record is CLAIMED
+        when(recordRepository.claim(any(), anyList(), any())).thenAnswer(inv -> new HashSet<>(inv.<List<String>>getArgument(1)));
+        when(recordRepository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<AdvisoryImpactRecord> claimed = new ArrayList<>();
+            for (String key : inv.<Iterable<String>>getArgument(0)) {
+                String[] parts = key.split(":", 2);
+                AdvisoryImpactRecord record = new AdvisoryImpactRecord(parts[0], parts[1]);
+                record.setStage(AdvisoryImpactRecord.Stage.CLAIMED);
+                claimed.add(record);
+            }
+            return claimed;
+        });
+        when(notificationService.sendEmail(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
@@ -52,8 +99,8 @@ class AdvisoryImpactServiceTest {
         clonedDraft.setId("draft-1");
         clonedDraft.setSteps(new java.util.ArrayList<>()); // Empty steps init
 
-        when(workflowRepository.findByTravelDateAfter(any(LocalDate.class)))
-                .thenReturn(Collections.singletonList(existingBooking));
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(existingBooking));
 
         when(advisoryService.checkAdvisoryImpact(existingBooking, advisory)).thenReturn(true);
         when(cloneService.cloneForAdvisoryReview(existingBooking)).thenReturn(clonedDraft);
@@ -63,8 +110,8 @@ class AdvisoryImpactServiceTest {
         impactService.processNewAdvisory(advisory);
 
         // Assert
-        // 1. Verify repository queried for future bookings
-        verify(workflowRepository).findByTravelDateAfter(any(LocalDate.class));
+        // 1. Verify repository queried for future bookings in the advisory's countries
+        verify(workflowRepository).streamByTravelDateAfterAndCountryIn(any(LocalDate.class), eq(Set.of("IN", "CN")));
 
         // 2. Verify cloning happened
         verify(cloneService).cloneForAdvisoryReview(existingBooking);
@@ -72,11 +119,11 @@ class AdvisoryImpactServiceTest {
         // 3. Verify script generation
         verify(advisoryService).generateAgentAdvisoryScript(existingBooking, advisory);
 
-        // 4. Verify save was called with modified draft
-        ArgumentCaptor<BookingWorkflow> captor = ArgumentCaptor.forClass(BookingWorkflow.class);
-        verify(workflowRepository).save(captor.capture());
+        // 4. Verify the modified draft went out in a bulk insert
+        List<BookingWorkflow> inserted = captureBulkInsert();
+        assertEquals(1, inserted.size());
 
-        BookingWorkflow savedDraft = captor.getValue();
+        BookingWorkflow savedDraft = inserted.get(0);
         assertEquals("draft-1", savedDraft.getId());
         assertEquals("John Doe (Advisory Review)", savedDraft.getCustomerName());
         assertFalse(savedDraft.getSteps().isEmpty());
@@ -90,8 +137,8 @@ class AdvisoryImpactServiceTest {
         Advisory advisory = new Advisory("France", "Germany", "LOW", "Rain");
         BookingWorkflow existingBooking = new BookingWorkflow();
 
-        when(workflowRepository.findByTravelDateAfter(any(LocalDate.class)))
-                .thenReturn(Collections.singletonList(existingBooking));
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(existingBooking));
 
         when(advisoryService.checkAdvisoryImpact(existingBooking, advisory)).thenReturn(false);
 
@@ -100,6 +147,401 @@ class AdvisoryImpactServiceTest {
 
         // Assert
         verify(cloneService, never()).cloneForAdvisoryReview(any());
-        verify(workflowRepository, never()).save(any());
+        verify(workflowRepository, never()).bulkInsert(any());
+    }
+
+    @Test
+    void processNewAdvisory_ShouldIsolateFailures_WhenOneBookingFails() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        BookingWorkflow failing = new BookingWorkflow();
+        failing.setId("wf-fail");
+        BookingWorkflow healthy = new BookingWorkflow();
+        healthy.setId("wf-ok");
+        healthy.setCustomerName("Jane Roe");
+
+        BookingWorkflow healthyDraft = new BookingWorkflow();
+        healthyDraft.setSteps(new java.util.ArrayList<>());
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(failing, healthy));
+        when(advisoryService.checkAdvisoryImpact(any(), eq(advisory))).thenReturn(true);
+        when(cloneService.cloneForAdvisoryReview(failing)).thenThrow(new IllegalStateException("boom"));
+        when(cloneService.cloneForAdvisoryReview(healthy)).thenReturn(healthyDraft);
+        when(advisoryService.generateAgentAdvisoryScript(healthy, advisory)).thenReturn("Call the customer.");
+
+        AdvisoryImpactJob job = new AdvisoryImpactJob("job-1", advisory.getId());
+
+        // Act
+        impactService.processNewAdvisory(advisory, job);
+
+        // Assert
+        assertEquals(2, job.getScanned());
+        assertEquals(2, job.getImpacted());
+        assertEquals(1, job.getCloned());
+        assertEquals(1, job.getNotified());
+        assertEquals(1, job.getFailed());
+        verify(workflowRepository, times(1)).bulkInsert(List.of(healthyDraft));
+    }
+
+    @Test
+    void processNewAdvisory_ShouldBatchScripts_AndFallBackForMissingBookings() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        BookingWorkflow first = new BookingWorkflow();
+        first.setId("wf-1");
+        BookingWorkflow second = new BookingWorkflow();
+        second.setId("wf-2");
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(first, second));
+        when(advisoryService.checkAdvisoryImpact(any(), eq(advisory))).thenReturn(true);
+        when(cloneService.cloneForAdvisoryReview(any())).thenAnswer(inv -> {
+            BookingWorkflow draft = new BookingWorkflow();
+            draft.setSteps(new java.util.ArrayList<>());
+            return draft;
+        });
+        // The model answered for wf-1 only
+        when(advisoryService.generateAgentAdvisoryScripts(List.of(first, second), advisory))
+                .thenReturn(Map.of("wf-1", "Batched script."));
+        when(advisoryService.generateAgentAdvisoryScript(second, advisory)).thenReturn("Single script.");
+
+        // Act
+        impactService.processNewAdvisory(advisory);
+
+        // Assert
+        verify(advisoryService).generateAgentAdvisoryScripts(List.of(first, second), advisory);
+        verify(advisoryService, never()).generateAgentAdvisoryScript(first, advisory);
+        verify(advisoryService).generateAgentAdvisoryScript(second, advisory);
+
+        // Both clones share one bulk insert
+        List<BookingWorkflow> inserted = captureBulkInsert();
+        assertEquals(2, inserted.size());
+        assertEquals("Batched script.", inserted.get(0).getSteps().get(0).getMetadata().get("agentScript"));
+        assertEquals("Single script.", inserted.get(1).getSteps().get(0).getMetadata().get("agentScript"));
+
+        // Every stage of the run was timed
+        assertEquals(1, meterRegistry.get("advisory.fanout.stage").tag("stage", "run").timer().count());
+        assertEquals(1, meterRegistry.get("advisory.fanout.stage").tag("stage", "scripts").timer().count());
+        assertEquals(2, meterRegistry.get("advisory.fanout.stage").tag("stage", "booking").timer().count());
+        assertEquals(1, meterRegistry.get("advisory.fanout.stage").tag("stage", "clone_write").timer().count());
+    }
+
+    @Test
+    void processNewAdvisory_ShouldSkipFinishedBookings_AndResumePartialOnes() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        advisory.setId("adv-1");
+        BookingWorkflow done = new BookingWorkflow();
+        done.setId("wf-done");
+        BookingWorkflow cloned = new BookingWorkflow();
+        cloned.setId("wf-cloned");
+        cloned.setCustomerName("Jane Roe");
+        BookingWorkflow scripted = new BookingWorkflow();
+        scripted.setId("wf-scripted");
+
+        AdvisoryImpactRecord doneRecord = record(advisory, done, AdvisoryImpactRecord.Stage.NOTIFIED);
+        AdvisoryImpactRecord clonedRecord = record(advisory, cloned, AdvisoryImpactRecord.Stage.CLONED);
+        AdvisoryImpactRecord scriptedRecord = record(advisory, scripted, AdvisoryImpactRecord.Stage.SCRIPTED);
+        scriptedRecord.setCloneId("clone-from-first-run");
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(done, cloned, scripted));
+        when(advisoryService.checkAdvisoryImpact(any(), eq(advisory))).thenReturn(true);
+        when(recordRepository.findAllById(anyIterable())).thenReturn(List.of(doneRecord, clonedRecord, scriptedRecord));
+        when(cloneService.cloneForAdvisoryReview(scripted)).thenAnswer(inv -> {
+            BookingWorkflow draft = new BookingWorkflow();
+            draft.setId("fresh-id");
+            draft.setSteps(new java.util.ArrayList<>());
+            return draft;
+        });
+        AdvisoryImpactJob job = new AdvisoryImpactJob("job-2", advisory.getId());
+
+        // Act
+        impactService.processNewAdvisory(advisory, job);
+
+        // Assert
+        // No script is regenerated: every booking already had one stored
+        verify(advisoryService, never()).generateAgentAdvisoryScript(any(), any());
+        verify(advisoryService, never()).generateAgentAdvisoryScripts(any(), any());
+
+        // Only the SCRIPTED booking is cloned, under the id recorded by the first run
+        List<BookingWorkflow> inserted = captureBulkInsert();
+        assertEquals(1, inserted.size());
+        assertEquals("clone-from-first-run", inserted.get(0).getId());
+        assertEquals("Stored script.", inserted.get(0).getSteps().get(0).getMetadata().get("agentScript"));
+
+        // CLONED and SCRIPTED bookings still owe an email; the NOTIFIED one does not
+        verify(notificationService, times(2)).sendEmail(anyString(), anyString(), anyString());
+        assertEquals(1, job.getSkipped());
+        assertEquals(AdvisoryImpactRecord.Stage.NOTIFIED, clonedRecord.getStage());
+        assertEquals(AdvisoryImpactRecord.Stage.NOTIFIED, scriptedRecord.getStage());
+    }
+
+    @Test
+    void processNewAdvisory_ShouldIgnoreItsOwnReviewClones() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        advisory.setId("adv-1");
+        WorkflowStep reviewStep = new WorkflowStep("advisory-guidance-1", "Advisory Impact Review", "", WorkflowStep.StepStatus.PENDING, false,
+                new java.util.HashMap<>(Map.of("advisoryId", "adv-1", "isAdvisoryTask", true)));
+        BookingWorkflow reviewClone = new BookingWorkflow();
+        reviewClone.setId("clone-1");
+        reviewClone.setSteps(List.of(reviewStep));
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(reviewClone));
+
+        // Act
+        impactService.processNewAdvisory(advisory);
+
+        // Assert
+        verify(advisoryService, never()).checkAdvisoryImpact(any(), any());
+        verify(cloneService, never()).cloneForAdvisoryReview(any());
+    }
+
+    @Test
+    void processNewAdvisory_ShouldTreatDuplicateCloneAsWritten_AndFailOnlyTheRejectedOne() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        BookingWorkflow first = new BookingWorkflow();
+        first.setId("wf-1");
+        BookingWorkflow second = new BookingWorkflow();
+        second.setId("wf-2");
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(first, second));
+        when(advisoryService.checkAdvisoryImpact(any(), eq(advisory))).thenReturn(true);
+        when(cloneService.cloneForAdvisoryReview(any())).thenAnswer(inv -> {
+            BookingWorkflow draft = new BookingWorkflow();
+            draft.setSteps(new java.util.ArrayList<>());
+            return draft;
+        });
+        when(advisoryService.generateAgentAdvisoryScripts(any(), eq(advisory)))
+                .thenReturn(Map.of("wf-1", "Script.", "wf-2", "Script."));
+        // wf-1's clone was already written by an earlier run; wf-2's is rejected outright
+        when(workflowRepository.bulkInsert(any())).thenReturn(List.of(
+                new BulkWriteFailure(0, "clone-1", BulkWriteFailure.DUPLICATE_KEY, "E11000 duplicate key"),
+                new BulkWriteFailure(1, "clone-2", 121, "Document failed validation")));
+        AdvisoryImpactJob job = new AdvisoryImpactJob("job-3", advisory.getId());
+
+        // Act
+        impactService.processNewAdvisory(advisory, job);
+
+        // Assert
+        assertEquals(1, job.getCloned());
+        assertEquals(1, job.getNotified());
+        assertEquals(1, job.getFailed());
+        verify(notificationService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        verify(eventService, never()).publishCreated(any());
+    }
+
+    @Test
+    void processNewAdvisory_ShouldRecordTheCloneBeforeEmailing_SoAFailedEmailResumesAtTheEmail() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        advisory.setId("adv-1");
+        BookingWorkflow booking = new BookingWorkflow();
+        booking.setId("wf-1");
+        BookingWorkflow draft = new BookingWorkflow();
+        draft.setId("clone-1");
+        draft.setSteps(new java.util.ArrayList<>());
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(booking));
+        when(advisoryService.checkAdvisoryImpact(booking, advisory)).thenReturn(true);
+        when(advisoryService.generateAgentAdvisoryScript(booking, advisory)).thenReturn("Call the customer.");
+        when(cloneService.cloneForAdvisoryReview(booking)).thenReturn(draft);
+        List<AdvisoryImpactRecord.Stage> savedStages = new java.util.ArrayList<>();
+        doAnswer(inv -> {
+            List<AdvisoryImpactRecord> records = inv.getArgument(0);
+            records.forEach(r -> savedStages.add(r.getStage()));
+            return null;
+        }).when(recordRepository).bulkSave(anyList());
+        doThrow(new IllegalStateException("SMTP down"))
+                .when(notificationService).sendEmail(anyString(), anyString(), anyString());
+        AdvisoryImpactJob job = new AdvisoryImpactJob("job-4", advisory.getId());
+
+        // Act
+        impactService.processNewAdvisory(advisory, job);
+
+        // Assert: stored as SCRIPTED with the clone id, then CLONED once the clone landed,
+        // then released still CLONED when the email failed
+        assertEquals(List.of(AdvisoryImpactRecord.Stage.SCRIPTED, AdvisoryImpactRecord.Stage.CLONED,
+                AdvisoryImpactRecord.Stage.CLONED), savedStages);
+        assertEquals(1, job.getCloned());
+        assertEquals(1, job.getFailed());
+
+        // The re-run only owes the email
+        AdvisoryImpactRecord stored = record(advisory, booking, AdvisoryImpactRecord.Stage.CLONED);
+        stored.setCloneId("clone-1");
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(booking));
+        when(recordRepository.findAllById(anyIterable())).thenReturn(List.of(stored));
+        doReturn(CompletableFuture.completedFuture(null))
+                .when(notificationService).sendEmail(anyString(), anyString(), anyString());
+        clearInvocations(cloneService, workflowRepository);
+
+        impactService.processNewAdvisory(advisory, new AdvisoryImpactJob("job-5", advisory.getId()));
+
+        verify(cloneService, never()).cloneForAdvisoryReview(any());
+        verify(workflowRepository, never()).bulkInsert(any());
+        assertEquals(AdvisoryImpactRecord.Stage.NOTIFIED, stored.getStage());
+    }
+
+    @Test
+    void processNewAdvisory_ShouldLeaveTheBookingUnscripted_WhenTheLlmGaveNoScript_SoARerunScriptsIt() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        advisory.setId("adv-1");
+        BookingWorkflow booking = new BookingWorkflow();
+        booking.setId("wf-1");
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(booking));
+        when(advisoryService.checkAdvisoryImpact(booking, advisory)).thenReturn(true);
+        // Breaker open: no script
+        when(advisoryService.generateAgentAdvisoryScript(booking, advisory)).thenReturn(null);
+        AdvisoryImpactRecord stored = record(advisory, booking, AdvisoryImpactRecord.Stage.CLAIMED);
+        stored.setAgentScript(null);
+        stored.setClaimedUntil(java.time.Instant.now().plusSeconds(1800));
+        when(recordRepository.findAllById(anyIterable())).thenReturn(List.of(stored));
+        AdvisoryImpactJob job = new AdvisoryImpactJob("job-7", advisory.getId());
+
+        // Act
+        impactService.processNewAdvisory(advisory, job);
+
+        // Assert: counted as failed, still unscripted, and the claim is released for the retry
+        assertEquals(1, job.getFailed());
+        assertEquals(0, job.getCloned());
+        assertEquals(AdvisoryImpactRecord.Stage.CLAIMED, stored.getStage());
+        assertNull(stored.getAgentScript());
+        assertNull(stored.getClaimedUntil());
+        verify(recordRepository).bulkSave(List.of(stored));
+        verify(cloneService, never()).cloneForAdvisoryReview(any());
+        verify(notificationService, never()).sendEmail(anyString(), anyString(), anyString());
+
+        // The LLM is back: the re-run scripts, clones and emails the booking
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(booking));
+        when(advisoryService.generateAgentAdvisoryScript(booking, advisory)).thenReturn("Call the customer.");
+        when(cloneService.cloneForAdvisoryReview(booking)).thenAnswer(inv -> {
+            BookingWorkflow draft = new BookingWorkflow();
+            draft.setId("clone-1");
+            draft.setSteps(new ArrayList<>());
+            return draft;
+        });
+        AdvisoryImpactJob rerun = new AdvisoryImpactJob("job-8", advisory.getId());
+
+        impactService.processNewAdvisory(advisory, rerun);
+
+        assertEquals(0, rerun.getFailed());
+        assertEquals(1, rerun.getNotified());
+        assertEquals(AdvisoryImpactRecord.Stage.NOTIFIED, stored.getStage());
+        assertEquals("Call the customer.", stored.getAgentScript());
+    }
+
+    @Test
+    void processNewAdvisory_ShouldRecordNotifiedOnlyOnceTheEmailIsSent() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        advisory.setId("adv-1");
+        BookingWorkflow sentBooking = new BookingWorkflow();
+        sentBooking.setId("wf-sent");
+        sentBooking.setCustomerEmail("sent@example.com");
+        BookingWorkflow lostBooking = new BookingWorkflow();
+        lostBooking.setId("wf-lost");
+        lostBooking.setCustomerEmail("lost@example.com");
+        AdvisoryImpactRecord sentRecord = record(advisory, sentBooking, AdvisoryImpactRecord.Stage.CLONED);
+        AdvisoryImpactRecord lostRecord = record(advisory, lostBooking, AdvisoryImpactRecord.Stage.CLONED);
+        lostRecord.setClaimedUntil(java.time.Instant.now().plusSeconds(1800));
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(sentBooking, lostBooking));
+        when(advisoryService.checkAdvisoryImpact(any(), eq(advisory))).thenReturn(true);
+        when(recordRepository.findAllById(anyIterable())).thenReturn(List.of(sentRecord, lostRecord));
+        // The mail worker sends one email later and gives up on the other after its retries
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        CompletableFuture<Void> lost = new CompletableFuture<>();
+        when(notificationService.sendEmail(eq("sent@example.com"), anyString(), anyString())).thenReturn(sent);
+        when(notificationService.sendEmail(eq("lost@example.com"), anyString(), anyString())).thenReturn(lost);
+        AdvisoryImpactJob job = new AdvisoryImpactJob("job-9", advisory.getId());
+        new Thread(() -> {
+            sleep(100);
+            sent.complete(null);
+            lost.completeExceptionally(new org.springframework.mail.MailSendException("Email not sent: SMTP down"));
+        }).start();
+
+        // Act: the run ends only after both emails settled
+        impactService.processNewAdvisory(advisory, job);
+
+        // Assert
+        assertEquals(AdvisoryImpactRecord.Stage.NOTIFIED, sentRecord.getStage());
+        assertEquals(AdvisoryImpactRecord.Stage.CLONED, lostRecord.getStage(), "A re-run sends the email again");
+        assertNull(lostRecord.getClaimedUntil());
+        assertEquals(1, job.getNotified());
+        assertEquals(1, job.getFailed());
+        verify(recordRepository).save(sentRecord);
+        verify(recordRepository, never()).save(lostRecord);
+    }
+
+    @Test
+    void processNewAdvisory_ShouldLeaveBookingsClaimedByAnotherRunAlone() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        advisory.setId("adv-1");
+        BookingWorkflow mine = new BookingWorkflow();
+        mine.setId("wf-1");
+        BookingWorkflow theirs = new BookingWorkflow();
+        theirs.setId("wf-2");
+
+        when(workflowRepository.streamByTravelDateAfterAndCountryIn(any(LocalDate.class), anyCollection()))
+                .thenReturn(Stream.of(mine, theirs));
+        when(advisoryService.checkAdvisoryImpact(any(), eq(advisory))).thenReturn(true);
+        // A concurrent run (e.g. on another instance) holds wf-2
+        when(recordRepository.claim(eq("adv-1"), eq(List.of("wf-1", "wf-2")), any())).thenReturn(Set.of("wf-1"));
+        when(advisoryService.generateAgentAdvisoryScript(mine, advisory)).thenReturn("Call the customer.");
+        when(cloneService.cloneForAdvisoryReview(mine)).thenAnswer(inv -> {
+            BookingWorkflow draft = new BookingWorkflow();
+            draft.setId("clone-1");
+            draft.setSteps(new ArrayList<>());
+            return draft;
+        });
+        AdvisoryImpactJob job = new AdvisoryImpactJob("job-6", advisory.getId());
+
+        // Act
+        impactService.processNewAdvisory(advisory, job);
+
+        // Assert
+        verify(recordRepository).findAllById(List.of("adv-1:wf-1"));
+        verify(advisoryService, never()).generateAgentAdvisoryScript(eq(theirs), any());
+        verify(cloneService, never()).cloneForAdvisoryReview(theirs);
+        verify(notificationService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        assertEquals(1, job.getSkipped());
+        assertEquals(1, job.getNotified());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BookingWorkflow> captureBulkInsert() {
+        ArgumentCaptor<List<BookingWorkflow>> captor = ArgumentCaptor.forClass(List.class);
+        verify(workflowRepository, times(1)).bulkInsert(captor.capture());
+        return captor.getValue();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static AdvisoryImpactRecord record(Advisory advisory, BookingWorkflow booking, AdvisoryImpactRecord.Stage stage) {
+        AdvisoryImpactRecord record = new AdvisoryImpactRecord(advisory.getId(), booking.getId());
+        record.setStage(stage);
+        record.setAgentScript("Stored script.");
+        record.setEstimatedCost("$100");
+        record.setEstimatedTimeDelay("1 day");
+        return record;
     }
 }
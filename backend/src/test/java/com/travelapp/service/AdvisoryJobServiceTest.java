@@ -0,0 +1,132 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.model.AdvisoryImpactJob;
+import com.travelapp.model.AdvisoryImpactJob.JobStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdvisoryJobServiceTest {
+
+    @Mock
+    private AdvisoryImpactService impactService;
+
+    @InjectMocks
+    private AdvisoryJobService jobService;
+
+    // Holds submitted runs until the test starts them
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(jobService, "jobExecutor", (TaskExecutor) queued::add);
+        ReflectionTestUtils.setField(jobService, "retention", Duration.ofHours(1));
+    }
+
+    @Test
+    void submit_ShouldJoinTheRunInProgress_AndStartAFreshOneOnceItIsDone() {
+        // Arrange
+        Advisory advisory = advisory("adv-1");
+
+        // Act
+        AdvisoryImpactJob first = jobService.submit(advisory);
+        AdvisoryImpactJob duplicate = jobService.submit(advisory);
+        AdvisoryImpactJob other = jobService.submit(advisory("adv-2"));
+
+        // Assert
+        assertSame(first, duplicate);
+        assertNotSame(first, other);
+        assertEquals(2, queued.size());
+        assertSame(first, jobService.getJob(first.getId()));
+
+        // Once the run finishes, a re-submit resumes with a new job
+        queued.get(0).run();
+        assertEquals(JobStatus.COMPLETED, first.getStatus());
+        verify(impactService).processNewAdvisory(advisory, first);
+        assertNotSame(first, jobService.submit(advisory));
+    }
+
+    @Test
+    void submit_ShouldFailTheJob_WhenTheQueueIsFull() {
+        // Arrange
+        ReflectionTestUtils.setField(jobService, "jobExecutor", (TaskExecutor) task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+        Advisory advisory = advisory("adv-1");
+
+        // Act
+        AdvisoryImpactJob rejected = jobService.submit(advisory);
+
+        // Assert
+        assertEquals(JobStatus.FAILED, rejected.getStatus());
+        assertEquals("Job queue is full; retry later", rejected.getError());
+        verify(impactService, never()).processNewAdvisory(any(), any());
+        // A failed job is done, so a retry is not joined to it
+        assertNotSame(rejected, jobService.submit(advisory));
+    }
+
+    @Test
+    void submit_ShouldMarkTheJobFailed_WhenTheRunThrows() {
+        // Arrange
+        Advisory advisory = advisory("adv-1");
+        doThrow(new IllegalStateException("Mongo down")).when(impactService).processNewAdvisory(eq(advisory), any());
+
+        // Act
+        AdvisoryImpactJob job = jobService.submit(advisory);
+        queued.get(0).run();
+
+        // Assert
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertEquals("Mongo down", job.getError());
+    }
+
+    @Test
+    void evictFinishedJobs_ShouldDropOnlyJobsFinishedBeforeTheRetention() throws InterruptedException {
+        // Arrange
+        ReflectionTestUtils.setField(jobService, "retention", Duration.ofMillis(20));
+        AdvisoryImpactJob finished = jobService.submit(advisory("adv-1"));
+        AdvisoryImpactJob running = jobService.submit(advisory("adv-2"));
+        queued.get(0).run();
+        Thread.sleep(50);
+
+        // Act
+        jobService.evictFinishedJobs();
+
+        // Assert
+        assertNull(jobService.getJob(finished.getId()));
+        assertSame(running, jobService.getJob(running.getId()));
+    }
+
+    @Test
+    void evictFinishedJobs_ShouldKeepRecentlyFinishedJobs() {
+        // Arrange
+        AdvisoryImpactJob finished = jobService.submit(advisory("adv-1"));
+        queued.get(0).run();
+
+        // Act
+        jobService.evictFinishedJobs();
+
+        // Assert
+        assertSame(finished, jobService.getJob(finished.getId()));
+    }
+
+    private static Advisory advisory(String id) {
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Ban");
+        advisory.setId(id);
+        return advisory;
+    }
+}
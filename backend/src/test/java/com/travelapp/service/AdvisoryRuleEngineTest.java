@@ -0,0 +1,80 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.model.WorkflowStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdvisoryRuleEngineTest {
+
+    private AdvisoryRuleEngine ruleEngine;
+
+    private final List<Advisory> advisories = List.of(new Advisory("India", "China", "HIGH", "Direct Flight Ban"));
+
+    @BeforeEach
+    void setUp() {
+        ruleEngine = new AdvisoryRuleEngine();
+        ReflectionTestUtils.setField(ruleEngine, "gazetteer", new Gazetteer());
+    }
+
+    @Test
+    void evaluate_ShouldFlagOnlyDirectLegs() {
+        // Act
+        AdvisoryRuleEngine.Outcome direct = outcome("Flight Delhi to Shanghai");
+        AdvisoryRuleEngine.Outcome twoLegs = outcome("Flight Delhi to Paris, then Paris to Shanghai");
+
+        // Assert
+        assertEquals(AdvisoryRuleEngine.Outcome.VIOLATING, direct);
+        assertEquals(AdvisoryRuleEngine.Outcome.AMBIGUOUS, twoLegs, "A stop in a third country is for the LLM to judge");
+    }
+
+    @Test
+    void evaluate_ShouldTreatUnknownLowercasePlaceAsUnresolved() {
+        // Act
+        AdvisoryRuleEngine.Outcome unknown = outcome("flight to lhasa");
+        AdvisoryRuleEngine.Outcome known = outcome("flight to paris");
+
+        // Assert
+        assertEquals(AdvisoryRuleEngine.Outcome.AMBIGUOUS, unknown);
+        assertEquals(AdvisoryRuleEngine.Outcome.CLEAN, known);
+    }
+
+    @Test
+    void evaluate_ShouldTreatUnknownPlaceNamesWithoutAPrepositionAsUnresolved() {
+        // Act
+        AdvisoryRuleEngine.Outcome sightseeing = outcome("Guilin sightseeing");
+        AdvisoryRuleEngine.Outcome leg = outcome("Flight Guilin–Ouagadougou");
+        AdvisoryRuleEngine.Outcome known = outcome("Paris museum tour");
+
+        // Assert
+        assertEquals(AdvisoryRuleEngine.Outcome.AMBIGUOUS, sightseeing);
+        assertEquals(AdvisoryRuleEngine.Outcome.AMBIGUOUS, leg);
+        assertEquals(AdvisoryRuleEngine.Outcome.CLEAN, known);
+    }
+
+    @Test
+    void evaluate_ShouldTreatTransportAndStaysNamingNoPlaceAsUnresolved() {
+        // Act
+        AdvisoryRuleEngine.Outcome flight = outcome("Flight Selection");
+        AdvisoryRuleEngine.Outcome hotel = outcome("Hotel Booking");
+        AdvisoryRuleEngine.Outcome airline = outcome("Flight with China Airlines");
+        AdvisoryRuleEngine.Outcome payment = outcome("Payment");
+
+        // Assert: the leg is implied by the workflow's own source and destination
+        assertEquals(AdvisoryRuleEngine.Outcome.AMBIGUOUS, flight);
+        assertEquals(AdvisoryRuleEngine.Outcome.AMBIGUOUS, hotel);
+        assertEquals(AdvisoryRuleEngine.Outcome.AMBIGUOUS, airline, "A brand names no place");
+        assertEquals(AdvisoryRuleEngine.Outcome.CLEAN, payment);
+    }
+
+    private AdvisoryRuleEngine.Outcome outcome(String name) {
+        WorkflowStep step = new WorkflowStep("step1", name, "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        return ruleEngine.evaluate(List.of(step), advisories).get("step1").getOutcome();
+    }
+}
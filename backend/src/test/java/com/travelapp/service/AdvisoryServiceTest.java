@@ -7,6 +7,7 @@ import com.travelapp.model.WorkflowStep;
 import com.travelapp.repository.AdvisoryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -19,7 +20,9 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
 
 class AdvisoryServiceTest {
 
@@ -29,6 +32,9 @@ class AdvisoryServiceTest {
     @Mock
     private LlmService llmService;
 
+    @Mock
+    private AdvisoryVersionService advisoryVersion;
+
     @InjectMocks
     private AdvisoryService advisoryService;
 
@@ -37,6 +43,27 @@ class AdvisoryServiceTest {
         MockitoAnnotations.openMocks(this);
         ObjectMapper objectMapper = new ObjectMapper();
         ReflectionTestUtils.setField(advisoryService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(advisoryService, "validationCache", new ValidationCacheService());
+
+        // Real registry backed by the mocked repository; it loads lazily on first read
+        Gazetteer gazetteer = new Gazetteer();
+        ReflectionTestUtils.setField(advisoryService, "gazetteer", gazetteer);
+
+        AdvisoryRuleEngine ruleEngine = new AdvisoryRuleEngine();
+        ReflectionTestUtils.setField(ruleEngine, "gazetteer", gazetteer);
+        ReflectionTestUtils.setField(advisoryService, "ruleEngine", ruleEngine);
+
+        AdvisoryRegistry registry = new AdvisoryRegistry();
+        ReflectionTestUtils.setField(registry, "repository", repository);
+        ReflectionTestUtils.setField(registry, "countryResolver", new CountryResolver(gazetteer));
+        ReflectionTestUtils.setField(advisoryService, "advisoryRegistry", registry);
+
+        CompliancePromptBuilder promptBuilder = new CompliancePromptBuilder();
+        ReflectionTestUtils.setField(promptBuilder, "advisoryRegistry", registry);
+        ReflectionTestUtils.setField(promptBuilder, "gazetteer", gazetteer);
+        ReflectionTestUtils.setField(promptBuilder, "countryResolver", new CountryResolver(gazetteer));
+        ReflectionTestUtils.setField(promptBuilder, "ruleEngine", ruleEngine);
+        ReflectionTestUtils.setField(advisoryService, "promptBuilder", promptBuilder);
     }
 
     @Test
@@ -58,10 +85,6 @@ class AdvisoryServiceTest {
 
         String mockLlmResponse = "```json\n"
                 + "{\n"
-                + "  \"step1\": {\n"
-                + "    \"warning\": \"Direct flights banned.\",\n"
-                + "    \"alternative\": \"Fly via connecting hub.\"\n"
-                + "  },\n"
                 + "  \"step2\": {\n"
                 + "    \"warning\": \"Travel caution in region.\",\n"
                 + "    \"alternative\": \"Ensure refundable booking.\"\n"
@@ -69,7 +92,7 @@ class AdvisoryServiceTest {
                 + "}\n"
                 + "```";
 
-        when(llmService.fetchLlmResponse(anyString())).thenReturn(mockLlmResponse);
+        when(llmService.fetchLlmResponse(anyString(), eq("validateWorkflow"), isNull())).thenReturn(mockLlmResponse);
 
         // Act
         boolean result = advisoryService.validateWorkflow(workflow);
@@ -77,10 +100,162 @@ class AdvisoryServiceTest {
         // Assert
         assertTrue(result, "Should return true if workflow was updated");
 
-        assertEquals("Direct flights banned.", step1.getWarning());
-        assertEquals("Fly via connecting hub.", step1.getAlternative());
+        // The direct India -> China flight is settled by the rules, the hotel stay by the LLM
+        assertEquals("[HIGH] Travel advisory India to China: Direct Flight Ban", step1.getWarning());
+        assertNotNull(step1.getAlternative());
 
         assertEquals("Travel caution in region.", step2.getWarning());
         assertEquals("Ensure refundable booking.", step2.getAlternative());
+
+        ArgumentCaptor<String> prompt = ArgumentCaptor.forClass(String.class);
+        verify(llmService).fetchLlmResponse(prompt.capture(), eq("validateWorkflow"), isNull());
+        assertTrue(prompt.getValue().contains("Step ID: step2"));
+        assertFalse(prompt.getValue().contains("Step ID: step1"), "Rule-settled steps stay out of the prompt");
+    }
+
+    @Test
+    void validateWorkflow_ShouldSkipLlm_WhenRulesSettleEveryStep() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Direct Flight Ban");
+        advisory.setId("1");
+        when(repository.findAll()).thenReturn(Collections.singletonList(advisory));
+
+        WorkflowStep flight = new WorkflowStep("step1", "Flight Paris to London", "Book flight", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        WorkflowStep payment = new WorkflowStep("step2", "Payment & Finalize", "Complete payment and send itinerary", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setSteps(Arrays.asList(flight, payment));
+
+        // Act
+        boolean result = advisoryService.validateWorkflow(workflow);
+
+        // Assert
+        assertTrue(result, "Workflow is stamped as validated");
+        assertNull(flight.getWarning());
+        verifyNoInteractions(llmService);
+    }
+
+    @Test
+    void isValidationCurrent_ShouldGoStale_WhenAdvisoryVersionOrStepsChange() {
+        // Arrange
+        when(repository.findAll()).thenReturn(Collections.singletonList(new Advisory("India", "China", "HIGH", "Direct Flight Ban")));
+        when(advisoryVersion.current()).thenReturn(7L);
+        WorkflowStep step = new WorkflowStep("step1", "Flight Paris to London", "Book flight", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setSteps(new java.util.ArrayList<>(List.of(step)));
+
+        // Act
+        boolean before = advisoryService.isValidationCurrent(workflow);
+        advisoryService.validateWorkflow(workflow);
+        boolean after = advisoryService.isValidationCurrent(workflow);
+
+        step.setDescription("Book flight to Beijing");
+        boolean afterStepEdit = advisoryService.isValidationCurrent(workflow);
+
+        advisoryService.validateWorkflow(workflow);
+        when(advisoryVersion.current()).thenReturn(8L);
+        boolean afterAdvisoryChange = advisoryService.isValidationCurrent(workflow);
+
+        // Assert
+        assertFalse(before);
+        assertTrue(after);
+        assertFalse(afterStepEdit);
+        assertFalse(afterAdvisoryChange);
+        assertEquals(7L, workflow.getValidatedAdvisoryVersion());
+    }
+
+    @Test
+    void validateWorkflow_ShouldStayStale_WhenLlmUnavailable() {
+        // Arrange
+        when(repository.findAll()).thenReturn(Collections.singletonList(new Advisory("India", "China", "HIGH", "Direct Flight Ban")));
+        WorkflowStep step = new WorkflowStep("step1", "Hotel in Guangzhou", "Book hotel", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setSteps(Collections.singletonList(step));
+        when(llmService.fetchLlmResponse(anyString(), eq("validateWorkflow"), isNull())).thenReturn(null);
+
+        // Act
+        boolean result = advisoryService.validateWorkflow(workflow);
+
+        // Assert
+        assertFalse(result);
+        assertFalse(advisoryService.isValidationCurrent(workflow), "Next read must retry the check");
+    }
+
+    @Test
+    void validateWorkflow_ShouldReuseCachedVerdict_WhenStepsAndAdvisoriesUnchanged() {
+        // Arrange
+        Advisory advisory = new Advisory("India", "China", "HIGH", "Direct Flight Ban");
+        advisory.setId("1");
+        when(repository.findAll()).thenReturn(Collections.singletonList(advisory));
+
+        WorkflowStep step1 = new WorkflowStep("step1", "Hotel in Guangzhou", "Book hotel", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setSteps(Collections.singletonList(step1));
+
+        when(llmService.fetchLlmResponse(anyString(), eq("validateWorkflow"), isNull()))
+                .thenReturn("{ \"step1\": { \"warning\": \"Travel caution in region.\" } }");
+
+        // Act
+        advisoryService.validateWorkflow(workflow);
+        boolean secondResult = advisoryService.validateWorkflow(workflow);
+
+        // Assert
+        verify(llmService, times(1)).fetchLlmResponse(anyString(), eq("validateWorkflow"), isNull());
+        assertFalse(secondResult, "Cached verdict matches the already-applied warning");
+        assertEquals("Travel caution in region.", step1.getWarning());
+    }
+
+    @Test
+    void validateWorkflow_ShouldCheckEveryRelevantAdvisory_WhenTheyExceedTheTokenBudget() {
+        // Arrange
+        List<Advisory> advisories = new java.util.ArrayList<>();
+        advisories.add(new Advisory("India", "China", "HIGH", "Direct Flight Ban"));
+        for (int i = 0; i < 60; i++) {
+            advisories.add(new Advisory("India", "China", "MEDIUM", "Regional notice number " + i));
+        }
+        advisories.add(new Advisory("India", "China", "LOW", "Hotel registration rules"));
+        when(repository.findAll()).thenReturn(advisories);
+        CompliancePromptBuilder promptBuilder = (CompliancePromptBuilder) ReflectionTestUtils.getField(advisoryService, "promptBuilder");
+        ReflectionTestUtils.setField(promptBuilder, "tokenBudget", 400);
+
+        WorkflowStep step = new WorkflowStep("step1", "Hotel in Guangzhou", "Book hotel", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setSteps(Collections.singletonList(step));
+        // Only the prompt carrying the LOW advisory reports a violation
+        when(llmService.fetchLlmResponse(anyString(), eq("validateWorkflow"), isNull())).thenAnswer(inv ->
+                inv.getArgument(0, String.class).contains("Hotel registration rules")
+                        ? "{ \"step1\": { \"warning\": \"Register with police.\" } }"
+                        : "{}");
+
+        // Act
+        boolean result = advisoryService.validateWorkflow(workflow);
+
+        // Assert
+        verify(llmService, atLeast(2)).fetchLlmResponse(anyString(), eq("validateWorkflow"), isNull());
+        assertTrue(result);
+        assertEquals("Register with police.", step.getWarning());
+        assertTrue(advisoryService.isValidationCurrent(workflow));
+    }
+
+    @Test
+    void validateWorkflow_ShouldStayStale_WhenAnyPartOfASplitCheckFails() {
+        // Arrange
+        List<Advisory> advisories = new java.util.ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            advisories.add(new Advisory("India", "China", "MEDIUM", "Regional notice number " + i));
+        }
+        when(repository.findAll()).thenReturn(advisories);
+        CompliancePromptBuilder promptBuilder = (CompliancePromptBuilder) ReflectionTestUtils.getField(advisoryService, "promptBuilder");
+        ReflectionTestUtils.setField(promptBuilder, "tokenBudget", 400);
+
+        WorkflowStep step = new WorkflowStep("step1", "Hotel in Guangzhou", "Book hotel", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setSteps(Collections.singletonList(step));
+        when(llmService.fetchLlmResponse(anyString(), eq("validateWorkflow"), isNull())).thenReturn("{}", (String) null);
+
+        // Act
+        advisoryService.validateWorkflow(workflow);
+
+        // Assert
+        assertFalse(advisoryService.isValidationCurrent(workflow), "Advisories left unchecked must be retried");
     }
 }
@@ -0,0 +1,80 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Counter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AdvisoryVersionServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AdvisoryRegistry advisoryRegistry;
+
+    @Mock
+    private ValidationCacheService validationCache;
+
+    @InjectMocks
+    private AdvisoryVersionService versionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mongoTemplate.findById(AdvisoryVersionService.COUNTER_ID, Counter.class))
+                .thenReturn(new Counter(AdvisoryVersionService.COUNTER_ID, 5));
+    }
+
+    @Test
+    void bump_ShouldNotReload_WhenOnlyThisInstanceChangedTheAdvisories() {
+        // Arrange
+        versionService.current();
+        counterAfterIncrement(6);
+
+        // Act
+        long version = versionService.bump();
+
+        // Assert
+        assertEquals(6, version);
+        verify(advisoryRegistry, never()).reload();
+    }
+
+    @Test
+    void bump_ShouldReload_WhenAnotherReplicaBumpedSinceTheLastPoll() {
+        // Arrange
+        versionService.current();
+        // Another replica took 6; our increment returns 7
+        counterAfterIncrement(7);
+
+        // Act
+        long version = versionService.bump();
+
+        // Assert
+        assertEquals(7, version);
+        verify(advisoryRegistry).reload();
+        verify(validationCache).invalidateAll();
+
+        // The poll must not consider the instance up to date with a registry it never loaded
+        when(mongoTemplate.findById(AdvisoryVersionService.COUNTER_ID, Counter.class))
+                .thenReturn(new Counter(AdvisoryVersionService.COUNTER_ID, 7));
+        versionService.pollForChanges();
+        verify(advisoryRegistry, times(1)).reload();
+    }
+
+    private void counterAfterIncrement(long value) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Counter.class)))
+                .thenReturn(new Counter(AdvisoryVersionService.COUNTER_ID, value));
+    }
+}
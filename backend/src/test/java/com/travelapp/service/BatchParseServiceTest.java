@@ -0,0 +1,96 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.travelapp.model.BookingWorkflow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BatchParseServiceTest {
+
+    @Mock
+    private WorkflowIntakeService intakeService;
+
+    @InjectMocks
+    private BatchParseService batchParseService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // as Boot configures it
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(batchParseService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(batchParseService, "batchExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(batchParseService, "concurrency", 2);
+    }
+
+    @Test
+    void parseBatch_ShouldStreamOneLinePerItem_AndReportFailuresPerItem() throws Exception {
+        // Arrange
+        String ndjson = "{\"id\":\"a\",\"text\":\"Flight to Paris\"}\n"
+                + "not json\n"
+                + "\n"
+                + "\"Hotel in Rome\"\n"
+                + "{\"id\":\"d\"}\n";
+        BookingWorkflow paris = new BookingWorkflow();
+        paris.setId("wf-paris");
+        when(intakeService.createFromText("Flight to Paris")).thenReturn(paris);
+        when(intakeService.createFromText("Hotel in Rome")).thenThrow(new IllegalStateException("db down"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        List<BatchParseService.Item> items = batchParseService.readItems(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), true);
+        long count = batchParseService.parseBatch(items, out);
+
+        // Assert
+        assertEquals(4, count);
+        Map<Integer, JsonNode> byIndex = new HashMap<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            byIndex.put(node.get("index").asInt(), node);
+        }
+        assertEquals("wf-paris", byIndex.get(0).get("workflow").get("id").asText());
+        assertEquals("a", byIndex.get(0).get("id").asText());
+        assertFalse(byIndex.get(0).has("error"));
+        assertEquals("Malformed JSON line", byIndex.get(1).get("error").asText());
+        assertTrue(byIndex.get(2).get("error").asText().contains("db down"));
+        assertEquals("Missing request text", byIndex.get(3).get("error").asText());
+        assertEquals("d", byIndex.get(3).get("id").asText());
+    }
+
+    @Test
+    void readItems_ShouldRejectBrokenOrOversizedArrays() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(batchParseService, "maxItems", 2);
+
+        // Act
+        List<BatchParseService.Item> items = batchParseService.readItems(
+                new ByteArrayInputStream("[\"one\", {\"text\": \"two\"}]".getBytes(StandardCharsets.UTF_8)), false);
+
+        // Assert
+        assertEquals(2, items.size());
+        assertEquals("two", items.get(1).getText());
+        assertThrows(IllegalArgumentException.class, () -> batchParseService.readItems(
+                new ByteArrayInputStream("[\"one\",".getBytes(StandardCharsets.UTF_8)), false));
+        assertThrows(IllegalArgumentException.class, () -> batchParseService.readItems(
+                new ByteArrayInputStream("[\"1\",\"2\",\"3\"]".getBytes(StandardCharsets.UTF_8)), false));
+    }
+}
@@ -0,0 +1,142 @@
+package com.travelapp.service;
+
+import com.travelapp.model.Advisory;
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.WorkflowStep;
+import com.travelapp.repository.AdvisoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CompliancePromptBuilderTest {
+
+    @Mock
+    private AdvisoryRepository repository;
+
+    private CompliancePromptBuilder promptBuilder;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Gazetteer gazetteer = new Gazetteer();
+        CountryResolver countryResolver = new CountryResolver(gazetteer);
+
+        AdvisoryRegistry registry = new AdvisoryRegistry();
+        ReflectionTestUtils.setField(registry, "repository", repository);
+        ReflectionTestUtils.setField(registry, "countryResolver", countryResolver);
+
+        AdvisoryRuleEngine ruleEngine = new AdvisoryRuleEngine();
+        ReflectionTestUtils.setField(ruleEngine, "gazetteer", gazetteer);
+
+        promptBuilder = new CompliancePromptBuilder();
+        ReflectionTestUtils.setField(promptBuilder, "advisoryRegistry", registry);
+        ReflectionTestUtils.setField(promptBuilder, "gazetteer", gazetteer);
+        ReflectionTestUtils.setField(promptBuilder, "countryResolver", countryResolver);
+        ReflectionTestUtils.setField(promptBuilder, "ruleEngine", ruleEngine);
+    }
+
+    @Test
+    void build_ShouldIncludeOnlyAdvisoriesTouchingTheWorkflowCountries() {
+        // Arrange
+        List<Advisory> advisories = new ArrayList<>();
+        advisories.add(advisory("1", "India", "China", "LOW", "Reduced flights"));
+        advisories.add(advisory("2", "United States", "Russia", "HIGH", "Airspace closed"));
+        advisories.add(advisory("3", "Atlantis", "Lemuria", "MEDIUM", "Unmapped"));
+        advisories.add(advisory("4", "Japan", "China", "HIGH", "Port strike"));
+        when(repository.findAll()).thenReturn(advisories);
+
+        // Act
+        String prompt = promptBuilder.build(workflow("Delhi", "Guangzhou"), List.of(step("step1", "Hotel in Guangzhou"))).get(0);
+
+        // Assert
+        assertTrue(prompt.contains("Reduced flights"));
+        assertTrue(prompt.contains("Port strike"));
+        assertTrue(prompt.contains("Unmapped"), "Advisories the gazetteer cannot place are left to the LLM");
+        assertFalse(prompt.contains("Airspace closed"));
+        assertTrue(prompt.indexOf("Port strike") < prompt.indexOf("Reduced flights"), "Most severe first");
+        assertTrue(prompt.contains("Step ID: step1"));
+        assertEquals(1L, promptBuilder.getStats().get("advisoriesIrrelevant"));
+    }
+
+    @Test
+    void build_ShouldSplitAdvisoriesAcrossPrompts_WhenOverTokenBudget() {
+        // Arrange
+        List<Advisory> advisories = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            advisories.add(advisory("low" + i, "India", "China", "LOW", "Low-priority notice number " + i));
+        }
+        advisories.add(advisory("high", "India", "China", "HIGH", "Direct Flight Ban"));
+        when(repository.findAll()).thenReturn(advisories);
+        ReflectionTestUtils.setField(promptBuilder, "tokenBudget", 400);
+
+        // Act
+        List<String> prompts = promptBuilder.build(workflow("Delhi", "Guangzhou"), List.of(step("step1", "Hotel in Guangzhou")));
+
+        // Assert
+        assertTrue(prompts.size() > 1);
+        assertTrue(prompts.get(0).contains("Direct Flight Ban"), "Most severe goes in the first prompt");
+        for (String prompt : prompts) {
+            assertTrue(LlmService.estimateTokens(prompt) <= 400, "Every prompt stays within the budget");
+            assertTrue(prompt.contains("Step ID: step1"));
+        }
+        for (int i = 0; i < 200; i++) {
+            String notice = "Low-priority notice number " + i + "\n";
+            assertEquals(1, prompts.stream().filter(prompt -> prompt.contains(notice)).count(), "Each advisory exactly once");
+        }
+    }
+
+    @Test
+    void build_ShouldConsiderEveryAdvisory_WhenAPlaceIsUnknown() {
+        // Arrange
+        when(repository.findAll()).thenReturn(List.of(
+                advisory("1", "India", "China", "HIGH", "Direct Flight Ban"),
+                advisory("2", "United States", "Russia", "HIGH", "Airspace closed")));
+
+        // Act
+        String prompt = promptBuilder.build(workflow("Delhi", "Guangzhou"), List.of(step("step1", "Transfer to Xanadu"))).get(0);
+
+        // Assert
+        assertTrue(prompt.contains("Direct Flight Ban"));
+        assertTrue(prompt.contains("Airspace closed"), "Xanadu could be anywhere");
+    }
+
+    @Test
+    void build_ShouldConsiderEveryAdvisory_WhenAnUnknownPlaceHasNoPreposition() {
+        // Arrange
+        when(repository.findAll()).thenReturn(List.of(
+                advisory("1", "India", "China", "HIGH", "Direct Flight Ban"),
+                advisory("2", "United States", "Russia", "HIGH", "Airspace closed")));
+
+        // Act
+        String prompt = promptBuilder.build(workflow("Delhi", "Guangzhou"), List.of(step("step1", "Xanadu sightseeing"))).get(0);
+
+        // Assert
+        assertTrue(prompt.contains("Airspace closed"), "Xanadu could be anywhere");
+    }
+
+    private static Advisory advisory(String id, String source, String target, String severity, String description) {
+        Advisory advisory = new Advisory(source, target, severity, description);
+        advisory.setId(id);
+        return advisory;
+    }
+
+    private static BookingWorkflow workflow(String source, String destination) {
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setSource(source);
+        workflow.setDestination(destination);
+        return workflow;
+    }
+
+    private static WorkflowStep step(String id, String name) {
+        return new WorkflowStep(id, name, "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>());
+    }
+}
@@ -0,0 +1,66 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.travelapp.model.BookingWorkflow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ExportService exportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // as Boot configures it
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(exportService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void exportWorkflows_ShouldWriteOneJsonDocumentPerLine_AndCloseTheCursor() throws Exception {
+        // Arrange
+        BookingWorkflow first = new BookingWorkflow("wf1", "agent", "Alice", null, "Delhi", "Paris", null, false, LocalDate.of(2026, 5, 1));
+        BookingWorkflow second = new BookingWorkflow("wf2", "agent", "Bob", null, "Rome", "Tokyo", null, true, null);
+        boolean[] closed = { false };
+        when(mongoTemplate.stream(any(Query.class), eq(BookingWorkflow.class)))
+                .thenReturn(Stream.of(first, second).onClose(() -> closed[0] = true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = exportService.exportWorkflows(out);
+
+        // Assert
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode firstLine = objectMapper.readTree(lines[0]);
+        assertEquals("wf1", firstLine.get("id").asText());
+        assertEquals("2026-05-01", firstLine.get("travelDate").asText());
+        assertTrue(objectMapper.readTree(lines[1]).get("finished").asBoolean());
+        assertTrue(closed[0], "Mongo cursor must be closed after the export");
+    }
+}
@@ -0,0 +1,48 @@
+package com.travelapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GazetteerTest {
+
+    private final Gazetteer gazetteer = new Gazetteer();
+
+    @Test
+    void shouldResolveCitiesCountriesAndAirports() {
+        assertEquals("IN", gazetteer.resolveCountry("Delhi"));
+        assertEquals("IN", gazetteer.resolveCountry("india"));
+        assertEquals("FR", gazetteer.resolveCountry("Paris, France"));
+        assertEquals("KP", gazetteer.resolveCountry("Pyongyang, North Korea"));
+        assertEquals("IN", gazetteer.resolveCountry("DEL"));
+        assertNull(gazetteer.resolveCountry("Atlantis"));
+    }
+
+    @Test
+    void shouldOnlyMatchWholeWords_AndUpperCaseAirportCodes() {
+        // "del" as a lower-case word is not the Delhi airport, and "Indiana" is not India
+        assertNull(gazetteer.resolveCountry("del mar"));
+        assertNull(gazetteer.resolveCountry("Indianapolis"));
+    }
+
+    @Test
+    void shouldListCountriesInMentionOrder() {
+        assertEquals(List.of("IN", "CN"), gazetteer.countriesInOrder("Flight Delhi to Guangzhou"));
+        assertEquals(List.of("KP"), gazetteer.countriesInOrder("Visit North Korea"));
+        assertTrue(gazetteer.countriesInOrder("Hotel stay, 3 nights").isEmpty());
+    }
+
+    @Test
+    void shouldNotTakeAirlineAndBrandNamesForCountries() {
+        assertEquals(List.of("IN", "GB"), gazetteer.countriesInOrder("Emirates Flight Delhi to London"));
+        assertEquals(List.of("IN", "GB"), gazetteer.countriesInOrder("China Airlines flight Delhi to London"));
+        assertNull(gazetteer.resolveCountry("Emirates"));
+        assertNull(gazetteer.resolveCountry("Air Jordan store"));
+        assertNull(gazetteer.resolveCountry("Korea"), "Could be either Korea");
+        assertEquals("AE", gazetteer.resolveCountry("United Arab Emirates"));
+        assertEquals("CN", gazetteer.resolveCountry("China"));
+        assertEquals("HK", gazetteer.resolveCountry("China Airlines to Hong Kong"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelapp.model.ParsedItinerary;
+import com.travelapp.model.WorkflowStep;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItineraryStreamParserTest {
+
+    private static final String RESPONSE = "```json\n{\"title\": \"Paris Getaway\", \"customerEmail\": null,"
+            + " \"travelDate\": \"2027-03-12\", \"source\": \"Delhi\", \"destination\": \"Paris\","
+            + " \"tips\": [{\"name\": \"not a step\"}],"
+            + " \"steps\": [{\"name\": \"Flight\", \"description\": \"Air France \\\"AF225\\\" to Paris\"},"
+            + " {\"name\": \"Hotel\", \"description\": \"Ritz – 3 nights\", \"extra\": {\"stars\": 5}}]}\n```";
+
+    @Test
+    void shouldReportEachStepWhenItsObjectCloses_WhateverTheChunkBoundaries() throws Exception {
+        for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+            // Arrange
+            List<String> events = new ArrayList<>();
+            StringBuilder fed = new StringBuilder();
+            ItineraryStreamParser parser = new ItineraryStreamParser(new ObjectMapper(), new ItineraryStreamParser.Listener() {
+                @Override
+                public void onField(String name, String value) {
+                    events.add(name + "=" + value);
+                }
+
+                @Override
+                public void onStep(WorkflowStep step) {
+                    // Reported when its object closes, long before the response ends
+                    if (step.getName().equals("Flight")) {
+                        assertFalse(fed.toString().contains("Ritz"), "first step held back");
+                    }
+                    events.add("step:" + step.getName());
+                }
+            });
+
+            // Act
+            for (int i = 0; i < RESPONSE.length(); i += chunkSize) {
+                String chunk = RESPONSE.substring(i, Math.min(RESPONSE.length(), i + chunkSize));
+                fed.append(chunk);
+                parser.feed(chunk);
+            }
+            ParsedItinerary result = parser.result();
+
+            // Assert
+            assertEquals(List.of("title=Paris Getaway", "customerEmail=null", "travelDate=2027-03-12", "source=Delhi",
+                    "destination=Paris", "step:Flight", "step:Hotel"), events, "chunk size " + chunkSize);
+            assertEquals("Paris Getaway", result.getTitle());
+            assertNull(result.getCustomerEmail());
+            assertEquals(LocalDate.of(2027, 3, 12), result.getTravelDate());
+            assertEquals("Air France \"AF225\" to Paris", result.getSteps().get(0).getDescription());
+            assertEquals("Ritz – 3 nights", result.getSteps().get(1).getDescription());
+        }
+    }
+
+    @Test
+    void shouldReturnNull_WhenResponseIsTruncated() throws Exception {
+        // Arrange
+        ItineraryStreamParser parser = new ItineraryStreamParser(new ObjectMapper(), step -> {
+        });
+
+        // Act
+        parser.feed(RESPONSE.substring(0, RESPONSE.indexOf("Hotel")));
+
+        // Assert
+        assertEquals(1, parser.getSteps().size());
+        assertNull(parser.result());
+    }
+}
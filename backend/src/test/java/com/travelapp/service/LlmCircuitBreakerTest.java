@@ -0,0 +1,58 @@
+package com.travelapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmCircuitBreakerTest {
+
+    private LlmCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = new LlmCircuitBreaker();
+        ReflectionTestUtils.setField(breaker, "failureThreshold", 2);
+        ReflectionTestUtils.setField(breaker, "openDuration", Duration.ofMillis(50));
+    }
+
+    @Test
+    void shouldOpenAfterThreshold_AndShortCircuitCalls() {
+        breaker.recordFailure();
+        assertEquals(LlmCircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordFailure();
+        assertEquals(LlmCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void shouldAllowSingleTrialAfterOpenPeriod_AndCloseOnSuccess() throws InterruptedException {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        Thread.sleep(80);
+
+        assertTrue(breaker.allowRequest(), "First call after the open period is the trial");
+        assertFalse(breaker.allowRequest(), "Only one trial at a time");
+
+        breaker.recordSuccess();
+        assertEquals(LlmCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void shouldReopen_WhenTrialFails() throws InterruptedException {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        Thread.sleep(80);
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+
+        assertEquals(LlmCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+}
@@ -0,0 +1,44 @@
+package com.travelapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmRateLimiterTest {
+
+    private LlmRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new LlmRateLimiter();
+        ReflectionTestUtils.setField(limiter, "permitsPerSecond", 20.0);
+        ReflectionTestUtils.setField(limiter, "burst", 2);
+    }
+
+    @Test
+    void shouldAllowBurst_ThenRejectWhenTheWaitWouldBeTooLong() throws InterruptedException {
+        assertTrue(limiter.acquire(Duration.ZERO));
+        assertTrue(limiter.acquire(Duration.ZERO));
+
+        // The next token is 50ms away
+        assertFalse(limiter.acquire(Duration.ofMillis(5)));
+        assertEquals(1L, limiter.getStats().get("rejected"));
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void shouldWaitForRefill_WhenTheTokenArrivesWithinMaxWait() throws InterruptedException {
+        limiter.acquire(Duration.ZERO);
+        limiter.acquire(Duration.ZERO);
+
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire(Duration.ofSeconds(1)));
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(30).toNanos(), "waited for the refill");
+        assertEquals(0L, limiter.getStats().get("rejected"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.travelapp.service;
+
+import com.travelapp.model.LlmCacheEntry;
+import com.travelapp.repository.LlmCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LlmResponseCacheTest {
+
+    @Mock
+    private LlmCacheRepository repository;
+
+    @InjectMocks
+    private LlmResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void get_ShouldServeFromMemory_IgnoringWhitespaceDifferences() {
+        // Arrange
+        cache.put("generateItinerary", "Plan a trip   to Bali", "{\"title\":\"Bali\"}", Duration.ofHours(1));
+
+        // Act
+        String cached = cache.get("generateItinerary", "  Plan a trip to\nBali ");
+
+        // Assert
+        assertEquals("{\"title\":\"Bali\"}", cached);
+        verify(repository).save(any(LlmCacheEntry.class));
+        verify(repository, never()).findById(anyString());
+    }
+
+    @Test
+    void get_ShouldTreatExpiredMongoEntryAsMiss() {
+        // Arrange: the TTL monitor has not removed the document yet
+        LlmCacheEntry stale = new LlmCacheEntry("k", "handleCustomerResponse", "POSITIVE",
+                Instant.now().minusSeconds(120), Instant.now().minusSeconds(60));
+        when(repository.findById(anyString())).thenReturn(Optional.of(stale));
+
+        // Act
+        String cached = cache.get("handleCustomerResponse", "Sounds good, go ahead");
+
+        // Assert
+        assertNull(cached);
+    }
+
+    @Test
+    void get_ShouldNotShareEntriesAcrossCallers() {
+        // Arrange
+        cache.put("generateItinerary", "same prompt", "itinerary", Duration.ofHours(1));
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(cache.get("handleCustomerResponse", "same prompt"));
+    }
+}
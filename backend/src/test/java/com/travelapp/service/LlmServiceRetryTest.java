@@ -0,0 +1,160 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LlmServiceRetryTest {
+
+    private static final String OK_RESPONSE = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"ok\"}]}}]}";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private LlmRateLimiter rateLimiter;
+
+    private final LlmService llmService = new LlmService();
+    private final LlmCircuitBreaker circuitBreaker = new LlmCircuitBreaker();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(rateLimiter.acquire(any())).thenReturn(true);
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 5);
+        ReflectionTestUtils.setField(circuitBreaker, "openDuration", Duration.ofSeconds(30));
+
+        ReflectionTestUtils.setField(llmService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(llmService, "apiUrl", "http://llm.test/v1/models/test:generateContent");
+        ReflectionTestUtils.setField(llmService, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(llmService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(llmService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(llmService, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(llmService, "rateLimitMaxWait", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(llmService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(llmService, "retryInitialBackoff", Duration.ofMillis(1));
+    }
+
+    @Test
+    void shouldRetryServerErrors_UntilTheProviderAnswers() {
+        // Arrange
+        when(restTemplate.postForObject(anyString(), any(), eq(String.class)))
+                .thenThrow(HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable",
+                        new HttpHeaders(), new byte[0], StandardCharsets.UTF_8))
+                .thenReturn(OK_RESPONSE);
+
+        // Act
+        String response = llmService.fetchLlmResponse("prompt");
+
+        // Assert
+        assertEquals("ok", response);
+        verify(restTemplate, times(2)).postForObject(anyString(), any(), eq(String.class));
+        assertEquals(1L, llmService.getResilienceStats().get("retries"));
+    }
+
+    @Test
+    void shouldNotRetryClientErrors_NorCountThemAgainstTheProvider() {
+        // Arrange
+        when(restTemplate.postForObject(anyString(), any(), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request",
+                        new HttpHeaders(), new byte[0], StandardCharsets.UTF_8));
+
+        // Act
+        String response = llmService.fetchLlmResponse("prompt");
+
+        // Assert
+        assertNull(response);
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(String.class));
+        assertEquals(0, circuitBreaker.getStats().get("consecutiveFailures"));
+    }
+
+    @Test
+    void shouldNotRetryReadTimeouts_ButRetryConnectFailures() {
+        // Arrange
+        when(restTemplate.postForObject(anyString(), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")));
+
+        // Act
+        String timedOut = llmService.fetchLlmResponse("prompt");
+
+        // Assert
+        assertNull(timedOut);
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(String.class));
+
+        // Arrange
+        reset(restTemplate);
+        when(restTemplate.postForObject(anyString(), any(), eq(String.class)))
+                .thenThrow(new ResourceAccessException("I/O error", new ConnectException("Connection refused")));
+
+        // Act
+        String refused = llmService.fetchLlmResponse("prompt");
+
+        // Assert: every attempt is used
+        assertNull(refused);
+        verify(restTemplate, times(3)).postForObject(anyString(), any(), eq(String.class));
+    }
+
+    @Test
+    void shouldGiveUp_WhenRetryAfterExceedsTheTotalTimeBudget() {
+        // Arrange
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+        when(restTemplate.postForObject(anyString(), any(), eq(String.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests",
+                        headers, new byte[0], StandardCharsets.UTF_8));
+        ReflectionTestUtils.setField(llmService, "retryMaxTotalTime", Duration.ofSeconds(1));
+
+        // Act
+        long start = System.nanoTime();
+        String response = llmService.fetchLlmResponse("prompt");
+
+        // Assert
+        assertNull(response);
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(String.class));
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    void backoff_ShouldHonourRetryAfterUpToTheCap_AndJitterOtherwise() {
+        // Arrange
+        ReflectionTestUtils.setField(llmService, "retryInitialBackoff", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(llmService, "retryMaxBackoff", Duration.ofSeconds(8));
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "3");
+        HttpHeaders date = new HttpHeaders();
+        date.set(HttpHeaders.RETRY_AFTER, "Wed, 21 Oct 2026 07:28:00 GMT");
+
+        // Act & Assert
+        assertEquals(Duration.ofSeconds(3), LlmService.parseRetryAfter(seconds));
+        assertNull(LlmService.parseRetryAfter(date));
+        assertNull(LlmService.parseRetryAfter(new HttpHeaders()));
+
+        assertEquals(Duration.ofSeconds(3), llmService.backoff(1, Duration.ofSeconds(3)));
+        assertEquals(Duration.ofSeconds(8), llmService.backoff(1, Duration.ofMinutes(2)));
+        for (int i = 0; i < 50; i++) {
+            assertTrue(llmService.backoff(3, null).toMillis() <= 400, "third attempt waits at most initial * 4");
+            assertTrue(llmService.backoff(30, null).toMillis() <= 8000, "never beyond max-backoff");
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.travelapp.model.ParsedItinerary;
+import com.travelapp.model.WorkflowStep;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LlmServiceStreamingTest {
+
+    @Mock
+    private LlmResponseCache responseCache;
+
+    @Mock
+    private LlmRateLimiter rateLimiter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LlmService llmService = new LlmService();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(rateLimiter.acquire(any())).thenReturn(true);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+
+        ReflectionTestUtils.setField(llmService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(llmService, "apiUrl",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta/models/test:generateContent");
+        ReflectionTestUtils.setField(llmService, "restTemplate", new RestTemplate());
+        ReflectionTestUtils.setField(llmService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(llmService, "responseCache", responseCache);
+        ReflectionTestUtils.setField(llmService, "circuitBreaker", new LlmCircuitBreaker());
+        ReflectionTestUtils.setField(llmService, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(llmService, "rateLimitMaxWait", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(llmService, "itineraryCacheTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(llmService, "meterRegistry", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void streamItinerary_ShouldDeliverFirstStep_BeforeGenerationFinishes() throws Exception {
+        // Arrange
+        CountDownLatch firstStepSeen = new CountDownLatch(1);
+        AtomicBoolean deliveredMidStream = new AtomicBoolean();
+        AtomicReference<String> requestPath = new AtomicReference<>();
+        // The model's text, cut mid-token the way streamed chunks are
+        List<String> slices = List.of(
+                "```json\n{\"title\": \"Paris Get",
+                "away\", \"source\": \"Delhi\", \"destination\": \"Paris\", \"steps\": [{\"name\": \"Flight\", \"descr",
+                "iption\": \"AF225\"}, {\"name\": \"Hotel\", ",
+                "\"description\": \"Ritz\"}]}\n```");
+        server.createContext("/", exchange -> {
+            requestPath.set(exchange.getRequestURI().toString());
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < slices.size(); i++) {
+                    out.write(sseEvent(slices.get(i)));
+                    out.flush();
+                    if (i == 2) {
+                        // Hold the rest back until the client has surfaced the first step
+                        try {
+                            deliveredMidStream.set(firstStepSeen.await(5, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }
+        });
+        List<String> steps = new ArrayList<>();
+
+        // Act
+        ParsedItinerary result = llmService.streamItinerary("Paris trip", new ItineraryStreamParser.Listener() {
+            @Override
+            public void onStep(WorkflowStep step) {
+                steps.add(step.getName());
+                firstStepSeen.countDown();
+            }
+        });
+
+        // Assert
+        assertTrue(requestPath.get().contains(":streamGenerateContent?alt=sse"), requestPath.get());
+        assertTrue(deliveredMidStream.get(), "first step only arrived after the stream ended");
+        assertEquals(List.of("Flight", "Hotel"), steps);
+        assertEquals("Paris Getaway", result.getTitle());
+        assertEquals("Delhi", result.getSource());
+        verify(responseCache).put(eq("generateItinerary"), anyString(), eq(String.join("", slices)), any());
+        Map<?, ?> usage = (Map<?, ?>) llmService.getTokenUsageStats().get("generateItinerary");
+        assertEquals(1L, usage.get("calls"));
+        assertEquals(120L, usage.get("promptTokens"));
+        assertEquals(10L * slices.get(3).length(), usage.get("responseTokens"), "Totals come from the last chunk");
+        assertEquals(1, meterRegistry.get("llm.requests").tags("caller", "generateItinerary", "outcome", "success").timer().count());
+        assertEquals(120.0, meterRegistry.get("llm.tokens").tags("caller", "generateItinerary", "type", "prompt").counter().count());
+        assertEquals(String.join("", slices).length(),
+                meterRegistry.get("llm.response.size").tag("caller", "generateItinerary").summary().totalAmount());
+    }
+
+    @Test
+    void streamItinerary_ShouldReturnNull_WhenStreamEndsEarly() throws Exception {
+        // Arrange
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(sseEvent("{\"title\": \"Cut off\", \"steps\": [{\"name\": \"Flight\"}"));
+            }
+        });
+
+        // Act
+        ParsedItinerary result = llmService.streamItinerary("Paris trip", step -> {
+        });
+
+        // Assert
+        assertNull(result);
+        verify(responseCache, never()).put(any(), any(), any(), any());
+        assertEquals(1, meterRegistry.get("llm.requests").tags("caller", "generateItinerary", "outcome", "failure").timer().count());
+    }
+
+    private byte[] sseEvent(String text) throws IOException {
+        Map<String, Object> chunk = new HashMap<>();
+        chunk.put("candidates", List.of(Map.of("content", Map.of("parts", List.of(Map.of("text", text))))));
+        // Running totals, as the provider reports them on every chunk
+        chunk.put("usageMetadata", Map.of("promptTokenCount", 120, "candidatesTokenCount", 10 * text.length()));
+        return ("data: " + objectMapper.writeValueAsString(chunk) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,130 @@
+package com.travelapp.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private NotificationService notificationService;
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor mailExecutor;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        meterRegistry = new SimpleMeterRegistry();
+        // Shaped like AsyncConfig's: one thread per drain loop
+        mailExecutor = new ThreadPoolTaskExecutor();
+        mailExecutor.setCorePoolSize(2);
+        mailExecutor.setMaxPoolSize(2);
+        mailExecutor.setQueueCapacity(0);
+        mailExecutor.setThreadNamePrefix("mail-sender-");
+        mailExecutor.initialize();
+        notificationService = new NotificationService();
+        ReflectionTestUtils.setField(notificationService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(notificationService, "mailExecutor", mailExecutor);
+        ReflectionTestUtils.setField(notificationService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(notificationService, "fromEmail", "noreply@travelapp.com");
+        notificationService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        notificationService.stop();
+        mailExecutor.shutdown();
+    }
+
+    @Test
+    void sendEmail_ShouldDeliverQueuedMessages() throws Exception {
+        // Act
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            deliveries.add(notificationService.sendEmail("customer" + i + "@example.com", "Advisory " + i, "Body " + i));
+        }
+
+        // Assert
+        assertTrue(greenMail.waitForIncomingEmail(5000, 5), "All queued emails should arrive");
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+        Set<String> subjects = Arrays.stream(greenMail.getReceivedMessages())
+                .map(NotificationServiceTest::subject)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("Advisory 0", "Advisory 1", "Advisory 2", "Advisory 3", "Advisory 4"), subjects);
+        assertEquals(0, notificationService.getQueueDepth());
+        assertEquals(2L, notificationService.getStats().get("workers"));
+        assertEquals(2, mailExecutor.getActiveCount(), "drain loops run on the mail executor");
+
+        notificationService.stop();
+        assertEquals(0L, notificationService.getStats().get("workers"));
+    }
+
+    @Test
+    void sendEmail_ShouldRetryUntilServerIsReachable() throws Exception {
+        // Arrange: SMTP down when the message is first attempted
+        ReflectionTestUtils.setField(notificationService, "retryBackoff", java.time.Duration.ofMillis(300));
+        greenMail.stop();
+
+        // Act
+        notificationService.sendEmail("customer@example.com", "Retry me", "Body");
+        Thread.sleep(100);
+        greenMail.start();
+
+        // Assert
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1), "Message should be delivered on retry");
+        assertEquals("Retry me", subject(greenMail.getReceivedMessages()[0]));
+
+        notificationService.stop();
+        assertEquals(1, meterRegistry.get("mail.send").tag("outcome", "success").timer().count());
+        assertEquals(1.0, meterRegistry.get("mail.messages").tag("result", "sent").functionCounter().count());
+        assertEquals(0.0, meterRegistry.get("mail.queue.depth").gauge().value());
+    }
+
+    @Test
+    void sendEmail_ShouldFailTheDelivery_WhenRetriesAreUsedUp() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(notificationService, "retryBackoff", java.time.Duration.ofMillis(50));
+        greenMail.stop();
+
+        // Act
+        CompletableFuture<Void> delivery = notificationService.sendEmail("customer@example.com", "Lost", "Body");
+
+        // Assert
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> delivery.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(org.springframework.mail.MailSendException.class, failure.getCause());
+        assertEquals(1L, notificationService.getStats().get("failed"));
+        greenMail.start();
+    }
+
+    private static String subject(MimeMessage message) {
+        try {
+            return message.getSubject();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
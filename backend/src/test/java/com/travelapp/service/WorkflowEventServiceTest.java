@@ -0,0 +1,123 @@
+package com.travelapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.repository.BookingWorkflowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WorkflowEventServiceTest {
+
+    @Mock
+    private BookingWorkflowRepository workflowRepository;
+
+    @Mock
+    private AdvisoryService advisoryService;
+
+    @Mock
+    private AdvisoryVersionService advisoryVersion;
+
+    @Spy
+    private WorkflowWriteService workflowWriter = new WorkflowWriteService();
+
+    @InjectMocks
+    private WorkflowEventService eventService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(eventService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(eventService, "eventExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(eventService, "revalidationExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(workflowWriter, "repository", workflowRepository);
+        when(workflowRepository.save(any(BookingWorkflow.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void revalidatePending_ShouldValidateQueuedWorkflowOnce() {
+        // Arrange
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setId("wf1");
+        when(workflowRepository.findById("wf1")).thenReturn(Optional.of(workflow));
+        when(advisoryService.validateWorkflow(workflow)).thenReturn(true);
+        eventService.requestRevalidation("wf1");
+
+        // Act
+        eventService.revalidatePending();
+        eventService.revalidatePending();
+
+        // Assert
+        verify(advisoryService, times(1)).validateWorkflow(workflow);
+        verify(workflowRepository, times(1)).save(workflow);
+    }
+
+    @Test
+    void revalidatePending_ShouldRecheckFollowedWorkflows_OnlyWhenAdvisoryVersionChanges() {
+        // Arrange
+        BookingWorkflow followed = new BookingWorkflow();
+        followed.setId("wf2");
+        when(workflowRepository.findById("wf2")).thenReturn(Optional.of(followed));
+        when(advisoryVersion.current()).thenReturn(1L);
+        eventService.subscribe("wf2");
+        eventService.revalidatePending();
+        clearInvocations(workflowRepository, advisoryService);
+
+        // Act
+        eventService.revalidatePending();
+        when(advisoryVersion.current()).thenReturn(2L);
+        eventService.revalidatePending();
+
+        // Assert
+        verify(workflowRepository, times(1)).findById("wf2");
+        verify(advisoryService, times(1)).validateWorkflow(followed);
+        assertEquals(1, eventService.getStats().get("workflowSubscribers"));
+    }
+
+    @Test
+    void revalidatePending_ShouldRunOffTheSchedulerThread_AndSkipTicksWhileAPassIsRunning() {
+        // Arrange
+        List<Runnable> submitted = new ArrayList<>();
+        ReflectionTestUtils.setField(eventService, "revalidationExecutor", (Executor) submitted::add);
+        eventService.requestRevalidation("wf4");
+
+        // Act
+        eventService.revalidatePending();
+        eventService.revalidatePending();
+
+        // Assert: nothing ran on the calling thread, and the second tick did not queue another pass
+        verify(workflowRepository, never()).findById("wf4");
+        assertEquals(1, submitted.size());
+        assertEquals(true, eventService.getStats().get("revalidating"));
+
+        submitted.get(0).run();
+        verify(workflowRepository).findById("wf4");
+        assertEquals(false, eventService.getStats().get("revalidating"));
+    }
+
+    @Test
+    void publish_ShouldSkipSerialization_WhenNobodyListens() {
+        // Arrange
+        BookingWorkflow workflow = spy(new BookingWorkflow());
+        workflow.setId("wf3");
+
+        // Act
+        eventService.publishUpdated(workflow);
+
+        // Assert
+        verify(workflow, never()).getCustomerName();
+    }
+}
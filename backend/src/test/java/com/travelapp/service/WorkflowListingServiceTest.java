@@ -0,0 +1,84 @@
+package com.travelapp.service;
+
+import com.travelapp.model.WorkflowFilter;
+import com.travelapp.model.WorkflowPage;
+import com.travelapp.model.WorkflowSummary;
+import com.travelapp.repository.BookingWorkflowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class WorkflowListingServiceTest {
+
+    @Mock
+    private BookingWorkflowRepository repository;
+
+    @InjectMocks
+    private WorkflowListingService listingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void list_ShouldIssueCursor_WhenMoreRowsRemain() {
+        // Arrange
+        WorkflowFilter filter = new WorkflowFilter("agent-1", false, null, null);
+        when(repository.findSummaries(eq(filter), isNull(), isNull(), eq(3))).thenReturn(summaries(3));
+
+        // Act
+        WorkflowPage page = listingService.list(filter, null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+
+        // The cursor resumes strictly after the last row served
+        when(repository.findSummaries(any(), any(), any(), anyInt())).thenReturn(new ArrayList<>());
+        WorkflowPage next = listingService.list(filter, page.getNextCursor(), 2);
+        verify(repository).findSummaries(filter, Instant.ofEpochMilli(1_000_001), "wf-1", 3);
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void list_ShouldCapPageSize() {
+        // Arrange
+        WorkflowFilter filter = new WorkflowFilter();
+        when(repository.findSummaries(any(), any(), any(), anyInt())).thenReturn(new ArrayList<>());
+
+        // Act
+        listingService.list(filter, null, 10_000);
+
+        // Assert
+        verify(repository).findSummaries(filter, null, null, 201);
+    }
+
+    @Test
+    void list_ShouldRejectForeignCursor() {
+        assertThrows(IllegalArgumentException.class, () -> listingService.list(new WorkflowFilter(), "not-a-cursor", 10));
+    }
+
+    private static List<WorkflowSummary> summaries(int count) {
+        List<WorkflowSummary> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            WorkflowSummary summary = new WorkflowSummary();
+            summary.setId("wf-" + i);
+            summary.setCreatedAt(Instant.ofEpochMilli(1_000_000 + count - i - 1));
+            rows.add(summary);
+        }
+        return rows;
+    }
+}
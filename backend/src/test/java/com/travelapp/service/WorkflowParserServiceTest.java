@@ -0,0 +1,118 @@
+package com.travelapp.service;
+
+import com.travelapp.model.ParsedItinerary;
+import com.travelapp.model.WorkflowStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class WorkflowParserServiceTest {
+
+    @Mock
+    private LlmService llmService;
+
+    @Spy
+    private ItineraryScanner scanner = new ItineraryScanner(new Gazetteer());
+
+    @InjectMocks
+    private WorkflowParserService parserService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void parseItinerary_ShouldAnswerLocally_WhenRequestIsSimple() {
+        // Arrange
+        String request = "Flight from Delhi to Paris on 2027-03-12 and a hotel in Paris, email jane@example.com";
+
+        // Act
+        ParsedItinerary result = parserService.parseItinerary(request);
+
+        // Assert
+        verify(llmService, never()).generateItinerary(anyString());
+        assertEquals("Delhi", result.getSource());
+        assertEquals("Paris", result.getDestination());
+        assertEquals(LocalDate.of(2027, 3, 12), result.getTravelDate());
+        assertEquals("jane@example.com", result.getCustomerEmail());
+        assertEquals(List.of("Flight Booking", "Hotel Booking", "Payment & Finalize"),
+                result.getSteps().stream().map(WorkflowStep::getName).toList());
+        assertEquals("Book flight from Delhi to Paris", result.getSteps().get(0).getDescription());
+        assertEquals(1L, parserService.getStats().get("heuristicParses"));
+    }
+
+    @Test
+    void parseItinerary_ShouldAskLlm_WhenRequestIsBeyondTheScanner() {
+        // Arrange
+        String request = "Honeymoon in Bali with a cruise, then a train tour of Japan";
+        ParsedItinerary llmResult = new ParsedItinerary("Honeymoon", null,
+                List.of(new WorkflowStep("1", "Cruise", "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>())),
+                null, null, "Bali");
+        when(llmService.generateItinerary(request)).thenReturn(llmResult);
+
+        // Act
+        ParsedItinerary result = parserService.parseItinerary(request);
+
+        // Assert
+        assertSame(llmResult, result);
+        assertEquals(1L, parserService.getStats().get("llmParses"));
+    }
+
+    @Test
+    void scan_ShouldReadDatesAndIgnoreMonthsAsPlaces() {
+        // Arrange
+        ItineraryScanner localScanner = new ItineraryScanner(new Gazetteer());
+
+        // Act
+        ItineraryScanner.Scan scan = localScanner.scan("Need a taxi and hotel in London in May 5, 2027");
+        ItineraryScanner.Scan unknown = localScanner.scan("Flight to Atlantis");
+
+        // Assert
+        assertEquals(LocalDate.of(2027, 5, 5), scan.getTravelDate());
+        assertEquals("London", scan.getDestination());
+        assertEquals(1.0, scan.getConfidence(), 1e-9);
+        assertTrue(unknown.getConfidence() < 0.9);
+    }
+
+    @Test
+    void scan_ShouldScoreASimpleHotelRequestAtTheThresholdExactly() {
+        // Arrange
+        ItineraryScanner localScanner = new ItineraryScanner(new Gazetteer());
+
+        // Act
+        ItineraryScanner.Scan scan = localScanner.scan("Hotel in Paris");
+
+        // Assert: no date, so 0.9 - which must not come out a hair below the default threshold
+        assertEquals(0.9, scan.getConfidence());
+    }
+
+    @Test
+    void parseItinerary_ShouldAskLlm_WhenAServiceIsNegated() {
+        // Arrange
+        ItineraryScanner localScanner = new ItineraryScanner(new Gazetteer());
+        when(llmService.generateItinerary(anyString())).thenReturn(
+                new ParsedItinerary("Trip", null, List.of(), null, null, "Paris"));
+
+        // Act
+        ItineraryScanner.Scan noHotel = localScanner.scan("Flight from Delhi to Paris on 2027-03-12, no hotel needed");
+        ItineraryScanner.Scan dontBook = localScanner.scan("Flight from Delhi to Paris on 2027-03-12, don't book a hotel");
+        parserService.parseItinerary("Flight from Delhi to Paris on 2027-03-12, no hotel needed");
+
+        // Assert
+        assertTrue(noHotel.getConfidence() < 0.9);
+        assertTrue(dontBook.getConfidence() < 0.9);
+        verify(llmService).generateItinerary(anyString());
+    }
+}
@@ -0,0 +1,221 @@
+package com.travelapp.service;
+
+import com.travelapp.model.BookingWorkflow;
+import com.travelapp.model.WorkflowRevision;
+import com.travelapp.model.WorkflowStep;
+import com.travelapp.repository.BookingWorkflowRepository;
+import com.travelapp.repository.WorkflowRevisionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WorkflowWriteServiceTest {
+
+    @Mock
+    private BookingWorkflowRepository repository;
+
+    @Mock
+    private WorkflowRevisionRepository revisionRepository;
+
+    @InjectMocks
+    private WorkflowWriteService writeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void applyAndSave_ShouldReapplyChangeToLatestCopy_WhenSomeoneSavedFirst() {
+        // Arrange
+        BookingWorkflow stale = workflow(1L, "Flight Delhi to Paris");
+        // An agent completed the step in the meantime
+        BookingWorkflow latest = workflow(2L, "Flight Delhi to Paris");
+        latest.getSteps().get(0).setStatus(WorkflowStep.StepStatus.COMPLETED);
+
+        when(repository.save(stale)).thenThrow(new OptimisticLockingFailureException("version 1 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(latest));
+        when(repository.save(latest)).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        BookingWorkflow saved = writeService.applyAndSave(stale, w -> {
+            w.getSteps().get(0).setWarning("Advisory warning");
+            return true;
+        });
+
+        // Assert
+        assertSame(latest, saved);
+        assertEquals("Advisory warning", saved.getSteps().get(0).getWarning());
+        assertEquals(WorkflowStep.StepStatus.COMPLETED, saved.getSteps().get(0).getStatus());
+    }
+
+    @Test
+    void applyAndSave_ShouldSkipWrite_WhenNothingToChange_AndGiveUpAfterRetries() {
+        // Arrange
+        BookingWorkflow workflow = workflow(1L, "Hotel stay");
+        when(repository.save(any())).thenThrow(new OptimisticLockingFailureException("always stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(workflow));
+
+        // Act
+        BookingWorkflow unchanged = writeService.applyAndSave(workflow, w -> false);
+
+        // Assert
+        assertNull(unchanged);
+        verify(repository, never()).save(any());
+        assertThrows(OptimisticLockingFailureException.class, () -> writeService.applyAndSave(workflow, w -> true));
+        verify(repository, times(4)).save(workflow);
+    }
+
+    @Test
+    void saveClientCopy_ShouldKeepTheReorder_WhenSomeoneElseOnlyUpdatedStepState() {
+        // Arrange
+        BookingWorkflow reordered = twoSteps(1L);
+        reordered.setSteps(new ArrayList<>(List.of(reordered.getSteps().get(1), reordered.getSteps().get(0))));
+        // An agent completed the flight in the meantime
+        BookingWorkflow latest = twoSteps(2L);
+        latest.getSteps().get(0).setStatus(WorkflowStep.StepStatus.COMPLETED);
+
+        givenBase(twoSteps(1L));
+
+        when(repository.save(reordered)).thenThrow(new OptimisticLockingFailureException("version 1 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(latest));
+        when(repository.save(latest)).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        BookingWorkflow saved = writeService.saveClientCopy(reordered);
+
+        // Assert
+        assertSame(latest, saved);
+        assertEquals(List.of("s2", "s1"), saved.getSteps().stream().map(WorkflowStep::getId).toList());
+        assertEquals(WorkflowStep.StepStatus.COMPLETED, saved.getSteps().get(1).getStatus());
+    }
+
+    @Test
+    void saveClientCopy_ShouldRethrow_WhenTheClientChangedMoreThanTheOrder() {
+        // Arrange
+        BookingWorkflow edited = twoSteps(1L);
+        edited.getSteps().get(0).setName("Flight Delhi to Rome");
+        BookingWorkflow latest = twoSteps(2L);
+
+        when(repository.save(edited)).thenThrow(new OptimisticLockingFailureException("version 1 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(latest));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> writeService.saveClientCopy(edited));
+        verify(repository, never()).save(latest);
+    }
+
+    @Test
+    void saveClientCopy_ShouldKeepTheClientsStepStatus_WhenAStaleCopyRacedAValidationSave() {
+        // Arrange
+        BookingWorkflow edited = twoSteps(1L);
+        edited.getSteps().get(1).setStatus(WorkflowStep.StepStatus.COMPLETED);
+        edited.getSteps().get(1).setCompleted(true);
+        edited.setFinished(true);
+        // Validation wrote a warning on the flight in the meantime
+        BookingWorkflow latest = twoSteps(2L);
+        latest.getSteps().get(0).setWarning("Advisory warning");
+        givenBase(twoSteps(1L));
+
+        when(repository.save(edited)).thenThrow(new OptimisticLockingFailureException("version 1 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(latest));
+        when(repository.save(latest)).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        BookingWorkflow saved = writeService.saveClientCopy(edited);
+
+        // Assert
+        assertSame(latest, saved);
+        assertTrue(saved.isFinished());
+        assertEquals(WorkflowStep.StepStatus.COMPLETED, saved.getSteps().get(1).getStatus());
+        assertTrue(saved.getSteps().get(1).isCompleted());
+        assertEquals("Advisory warning", saved.getSteps().get(0).getWarning());
+    }
+
+    @Test
+    void saveClientCopy_ShouldRethrow_WhenBothSidesChangedTheSameStepStatus() {
+        // Arrange
+        BookingWorkflow edited = twoSteps(1L);
+        edited.getSteps().get(0).setStatus(WorkflowStep.StepStatus.COMPLETED);
+        BookingWorkflow latest = twoSteps(2L);
+        latest.getSteps().get(0).setStatus(WorkflowStep.StepStatus.SKIPPED);
+        givenBase(twoSteps(1L));
+
+        when(repository.save(edited)).thenThrow(new OptimisticLockingFailureException("version 1 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(latest));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> writeService.saveClientCopy(edited));
+        verify(repository, never()).save(latest);
+        assertEquals(WorkflowStep.StepStatus.SKIPPED, latest.getSteps().get(0).getStatus());
+    }
+
+    @Test
+    void saveClientCopy_ShouldRethrow_WhenTheBaseIsUnknownAndAStepStatusDiffers() {
+        // Arrange
+        BookingWorkflow edited = twoSteps(1L);
+        edited.getSteps().get(1).setStatus(WorkflowStep.StepStatus.COMPLETED);
+        BookingWorkflow latest = twoSteps(2L);
+
+        when(repository.save(edited)).thenThrow(new OptimisticLockingFailureException("version 1 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(latest));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> writeService.saveClientCopy(edited));
+        verify(repository, never()).save(latest);
+    }
+
+    @Test
+    void saveClientCopy_ShouldKeepStepsAddedOnBothSides_InTheirPlaces() {
+        // Arrange
+        BookingWorkflow edited = twoSteps(1L);
+        edited.getSteps().add(new WorkflowStep("s3", "Museum tour", "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>()));
+        BookingWorkflow latest = twoSteps(2L);
+        latest.getSteps().add(1, new WorkflowStep("s4", "Airport transfer", "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>()));
+        givenBase(twoSteps(1L));
+
+        when(repository.save(edited)).thenThrow(new OptimisticLockingFailureException("version 1 is stale"));
+        when(repository.findById("wf1")).thenReturn(Optional.of(latest));
+        when(repository.save(latest)).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        BookingWorkflow saved = writeService.saveClientCopy(edited);
+
+        // Assert
+        assertEquals(List.of("s1", "s4", "s2", "s3"), saved.getSteps().stream().map(WorkflowStep::getId).toList());
+    }
+
+    private void givenBase(BookingWorkflow base) {
+        when(revisionRepository.findById(WorkflowRevision.key(base.getId(), base.getVersion())))
+                .thenReturn(Optional.of(WorkflowRevision.of(base, Instant.now())));
+    }
+
+    private static BookingWorkflow twoSteps(long version) {
+        BookingWorkflow workflow = workflow(version, "Flight Delhi to Paris");
+        workflow.getSteps().add(new WorkflowStep("s2", "Hotel in Paris", "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>()));
+        return workflow;
+    }
+
+    private static BookingWorkflow workflow(long version, String stepName) {
+        List<WorkflowStep> steps = new ArrayList<>();
+        steps.add(new WorkflowStep("s1", stepName, "", WorkflowStep.StepStatus.PENDING, false, new HashMap<>()));
+        BookingWorkflow workflow = new BookingWorkflow();
+        workflow.setId("wf1");
+        workflow.setVersion(version);
+        workflow.setSteps(steps);
+        return workflow;
+    }
+}
@@ -1,5 +1,11 @@
 import React, { useState } from 'react';
 
+interface StreamedStep {
+    id: string;
+    name: string;
+    description: string;
+}
+
 interface SmartCreateModalProps {
     isOpen: boolean;
     onClose: () => void;
@@ -9,22 +15,79 @@ interface SmartCreateModalProps {
 const SmartCreateModal: React.FC<SmartCreateModalProps> = ({ isOpen, onClose, onCreated }) => {
     const [text, setText] = useState('');
     const [loading, setLoading] = useState(false);
+    const [steps, setSteps] = useState<StreamedStep[]>([]);
 
     if (!isOpen) return null;
 
+    // Reads the SSE frames of /parse/stream; resolves with the created workflow's id
+    const parseStreaming = async (): Promise<string> => {
+        const response = await fetch('/api/workflows/parse/stream', {
+            method: 'POST',
+            headers: { 'Content-Type': 'text/plain', 'Accept': 'text/event-stream' },
+            body: text
+        });
+        if (!response.ok || !response.body) {
+            throw new Error(`Stream failed: ${response.status}`);
+        }
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffer = '';
+        while (true) {
+            const { done, value } = await reader.read();
+            if (done) break;
+            buffer += decoder.decode(value, { stream: true }).replace(/\r\n/g, '\n');
+            let boundary;
+            while ((boundary = buffer.indexOf('\n\n')) >= 0) {
+                const frame = buffer.slice(0, boundary);
+                buffer = buffer.slice(boundary + 2);
+                let event = 'message';
+                const data: string[] = [];
+                for (const line of frame.split('\n')) {
+                    if (line.startsWith('event:')) event = line.slice(6).trim();
+                    else if (line.startsWith('data:')) data.push(line.slice(5).trimStart());
+                }
+                const payload = data.length ? JSON.parse(data.join('\n')) : null;
+                if (event === 'step') {
+                    setSteps(prev => [...prev, payload]);
+                } else if (event === 'reset') {
+                    setSteps([]);
+                } else if (event === 'workflow') {
+                    return payload.id;
+                } else if (event === 'error') {
+                    throw new Error(payload?.message || 'Failed to create workflow');
+                }
+            }
+        }
+        throw new Error('Stream ended before the workflow was created');
+    };
+
+    const parseBlocking = async (): Promise<string> => {
+        const response = await fetch('/api/workflows/parse', {
+            method: 'POST',
+            headers: { 'Content-Type': 'text/plain' }, // Send raw text
+            body: text
+        });
+        const data = await response.json();
+        return data.id;
+    };
+
     const handleSubmit = async (e: React.FormEvent) => {
         e.preventDefault();
         setLoading(true);
+        setSteps([]);
         try {
-            const response = await fetch('/api/workflows/parse', {
-                method: 'POST',
-                headers: { 'Content-Type': 'text/plain' }, // Send raw text
-                body: text
-            });
-            const data = await response.json();
-            onCreated(data.id);
+            let id: string;
+            try {
+                id = await parseStreaming();
+            } catch (streamError) {
+                console.warn('Streaming parse failed, retrying without streaming', streamError);
+                setSteps([]);
+                id = await parseBlocking();
+            }
+            onCreated(id);
             onClose();
             setText('');
+            setSteps([]);
         } catch (error) {
             console.error('Failed to create smart workflow', error);
         } finally {
@@ -47,6 +110,17 @@ const SmartCreateModal: React.FC<SmartCreateModalProps> = ({ isOpen, onClose, on
                         required
                     />
 
+                    {steps.length > 0 && (
+                        <ul className="mt-4 space-y-2 max-h-48 overflow-y-auto">
+                            {steps.map(step => (
+                                <li key={step.id} className="p-3 rounded-lg bg-indigo-50 text-sm text-gray-700">
+                                    <span className="font-semibold">{step.name}</span>
+                                    {step.description && <span className="text-gray-500"> — {step.description}</span>}
+                                </li>
+                            ))}
+                        </ul>
+                    )}
+
                     <div className="flex justify-end space-x-3 mt-6">
                         <button
                             type="button"
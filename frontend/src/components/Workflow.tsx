@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import SmartCreateModal from './SmartCreateModal';
 import StepDetailsForm from './StepDetailsForm';
 import { DndContext, closestCenter, KeyboardSensor, PointerSensor, useSensor, useSensors } from '@dnd-kit/core';
@@ -22,6 +22,7 @@ interface Workflow {
     customerName: string;
     steps: Step[];
     finished: boolean;
+    version: number;
 }
 
 interface WorkflowProps {
@@ -33,6 +34,8 @@ const Workflow: React.FC<WorkflowProps> = ({ activeWorkflowId, onWorkflowChange
     const [workflow, setWorkflow] = useState<Workflow | null>(null);
     const [isSmartModalOpen, setIsSmartModalOpen] = useState(false);
     const [selectedStep, setSelectedStep] = useState<Step | null>(null);
+    // The server's copy after a PUT hit 409; the local edit stays on screen until the user picks one
+    const [conflict, setConflict] = useState<Workflow | null>(null);
 
     const sensors = useSensors(
         useSensor(PointerSensor, {
@@ -45,19 +48,48 @@ const Workflow: React.FC<WorkflowProps> = ({ activeWorkflowId, onWorkflowChange
         })
     );
 
-    // Fetch from API with polling
+    // Read inside the event listener, which outlives any single render
+    const selectedStepRef = useRef<Step | null>(null);
+    // Set when a pushed update was held back while the step editor was open
+    const missedUpdateRef = useRef(false);
+    const conflictRef = useRef<Workflow | null>(null);
+    useEffect(() => {
+        conflictRef.current = conflict;
+    }, [conflict]);
+    useEffect(() => {
+        selectedStepRef.current = selectedStep;
+        if (!selectedStep && missedUpdateRef.current) {
+            missedUpdateRef.current = false;
+            fetchWorkflows(); // Catch up on what was pushed while editing
+        }
+    }, [selectedStep]);
+
+    // Fetch once, then follow server-pushed updates (new warnings, advisory tasks, customer responses)
     useEffect(() => {
         if (activeWorkflowId) {
             fetchWorkflows();
-            const interval = setInterval(fetchWorkflows, 5000);
-            return () => clearInterval(interval);
+            missedUpdateRef.current = false;
+            setConflict(null);
+            const events = new EventSource(`/api/workflows/${activeWorkflowId}/events`);
+            events.addEventListener('workflow', (event) => {
+                if (conflictRef.current) {
+                    setConflict(JSON.parse((event as MessageEvent).data)); // Keep the unsaved edit on screen
+                    return;
+                }
+                if (selectedStepRef.current) {
+                    missedUpdateRef.current = true; // Don't overwrite while editing a step; re-fetch on close
+                    return;
+                }
+                setWorkflow(JSON.parse((event as MessageEvent).data));
+            });
+            return () => events.close();
         } else {
             setWorkflow(null); // Clear workflow if no ID
         }
-    }, [activeWorkflowId]); // Re-fetch when ID changes
+    }, [activeWorkflowId]); // Re-subscribe when ID changes
 
     const fetchWorkflows = async () => {
-        if (selectedStep || !activeWorkflowId) return; // Don't poll while editing a step
+        if (selectedStep || !activeWorkflowId) return; // Don't refresh while editing a step
 
         try {
             const response = await fetch(`/api/workflows/${activeWorkflowId}`);
@@ -93,17 +125,37 @@ const Workflow: React.FC<WorkflowProps> = ({ activeWorkflowId, onWorkflowChange
         });
 
         // Auto-advance: Mark next PENDING step as IN_PROGRESS
+        let advancedStepId: string | null = null;
         if (nextStepIndex > 0 && nextStepIndex < newSteps.length) {
             if (newSteps[nextStepIndex].status === 'PENDING') {
                 newSteps[nextStepIndex] = {
                     ...newSteps[nextStepIndex],
                     status: 'IN_PROGRESS'
                 };
+                advancedStepId = newSteps[nextStepIndex].id;
             }
         }
 
-        updateWorkflowState(newSteps);
+        setWorkflow({ ...workflow, steps: newSteps });
         setSelectedStep(null);
+
+        // Send only the changed step fields
+        await patchStep(workflow.id, stepId, { status: 'COMPLETED', completed: true, metadata });
+        if (advancedStepId) {
+            await patchStep(workflow.id, advancedStepId, { status: 'IN_PROGRESS' });
+        }
+    };
+
+    const patchStep = async (workflowId: string, stepId: string, patch: Record<string, any>) => {
+        try {
+            await fetch(`/api/workflows/${workflowId}/steps/${encodeURIComponent(stepId)}`, {
+                method: 'PATCH',
+                headers: { 'Content-Type': 'application/json' },
+                body: JSON.stringify(patch)
+            });
+        } catch (error) {
+            console.error('Error updating step:', error);
+        }
     };
 
     const handleDragEnd = (event: DragEndEvent) => {
@@ -125,17 +177,40 @@ const Workflow: React.FC<WorkflowProps> = ({ activeWorkflowId, onWorkflowChange
         const updatedWorkflow = { ...workflow, steps: newSteps };
         setWorkflow(updatedWorkflow);
 
+        await putWorkflow(updatedWorkflow);
+    };
+
+    // Saves the whole booking. The server merges edits that do not overlap concurrent ones;
+    // 409 means the edits clash and the body is the current copy
+    const putWorkflow = async (updatedWorkflow: Workflow) => {
         try {
-            await fetch(`/api/workflows/${workflow.id}`, {
+            const response = await fetch(`/api/workflows/${updatedWorkflow.id}`, {
                 method: 'PUT',
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify(updatedWorkflow)
             });
+            if (response.ok) {
+                setWorkflow(await response.json());
+            } else if (response.status === 409) {
+                setConflict(await response.json());
+            }
         } catch (error) {
             console.error('Error updating workflow:', error);
         }
     };
 
+    // Re-sends the local edit over the server's current version
+    const keepLocalChanges = async () => {
+        if (!workflow || !conflict) return;
+        setConflict(null);
+        await putWorkflow({ ...workflow, version: conflict.version });
+    };
+
+    const discardLocalChanges = () => {
+        if (conflict) setWorkflow(conflict);
+        setConflict(null);
+    };
+
     if (!activeWorkflowId || !workflow) {
         return (
             <div className="flex flex-col items-center justify-center h-full p-8 text-center text-gray-500">
@@ -189,6 +264,26 @@ const Workflow: React.FC<WorkflowProps> = ({ activeWorkflowId, onWorkflowChange
                 }}
             />
 
+            {conflict && (
+                <div className="flex items-center justify-between gap-4 p-4 mb-6 bg-amber-50 border border-amber-300 rounded-lg text-sm text-amber-800">
+                    <span>Someone else changed this booking, so your change was not saved.</span>
+                    <div className="flex gap-2 shrink-0">
+                        <button
+                            onClick={keepLocalChanges}
+                            className="px-3 py-1.5 bg-amber-600 text-white font-semibold rounded-md hover:bg-amber-700 transition-colors"
+                        >
+                            Keep mine
+                        </button>
+                        <button
+                            onClick={discardLocalChanges}
+                            className="px-3 py-1.5 bg-white border border-amber-300 font-semibold rounded-md hover:bg-amber-100 transition-colors"
+                        >
+                            Load theirs
+                        </button>
+                    </div>
+                </div>
+            )}
+
             {selectedStep && (
                 <StepDetailsForm
                     step={selectedStep}
@@ -280,15 +375,7 @@ const Workflow: React.FC<WorkflowProps> = ({ activeWorkflowId, onWorkflowChange
                         const updatedWorkflow = { ...workflow, finished: true };
                         setWorkflow(updatedWorkflow);
 
-                        try {
-                            await fetch(`/api/workflows/${workflow.id}`, {
-                                method: 'PUT',
-                                headers: { 'Content-Type': 'application/json' },
-                                body: JSON.stringify(updatedWorkflow)
-                            });
-                        } catch (error) {
-                            console.error('Error finalizing workflow:', error);
-                        }
+                        await putWorkflow(updatedWorkflow);
                     }}
                 >
                     {workflow.finished ? 'Booking Finalized' : 'Finalize Booking'}
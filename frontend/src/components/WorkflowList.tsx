@@ -4,36 +4,74 @@ interface Workflow {
     id: string;
     customerName: string;
     finished: boolean;
-    steps: any[];
 }
 
+interface WorkflowPage {
+    items: Workflow[];
+    nextCursor: string | null;
+}
+
+const PAGE_SIZE = 50;
+
 interface WorkflowListProps {
     onSelectWorkflow: (id: string) => void;
     activeWorkflowId?: string;
 }
 
 const WorkflowList: React.FC<WorkflowListProps> = ({ onSelectWorkflow, activeWorkflowId }) => {
-    const [workflows, setWorkflows] = useState<Workflow[]>([]);
+    // First page is refreshed on server events; older pages are appended on demand
+    const [headPage, setHeadPage] = useState<WorkflowPage>({ items: [], nextCursor: null });
+    const [olderItems, setOlderItems] = useState<Workflow[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
+    const [loadingMore, setLoadingMore] = useState(false);
 
     useEffect(() => {
         fetchWorkflows();
-        const interval = setInterval(fetchWorkflows, 5000); // Poll for new bookings
-        return () => clearInterval(interval);
+        // Refresh the first page whenever a booking is created or changes
+        const events = new EventSource('/api/workflows/events');
+        events.addEventListener('workflow', fetchWorkflows);
+        return () => events.close();
     }, []);
 
+    const fetchPage = async (cursor?: string | null): Promise<WorkflowPage> => {
+        const params = new URLSearchParams({ limit: String(PAGE_SIZE) });
+        if (cursor) {
+            params.set('cursor', cursor);
+        }
+        const response = await fetch(`/api/workflows?${params}`);
+        return response.json();
+    };
+
     const fetchWorkflows = async () => {
         try {
-            const response = await fetch('/api/workflows');
-            const data = await response.json();
-            // Sort by ID descending (newest first)
-            // Assuming ID is somewhat time-based or appended. 
-            // Better: if backend had createdAt. For now reverse list.
-            setWorkflows(data.reverse());
+            // Server returns newest first
+            setHeadPage(await fetchPage());
         } catch (error) {
             console.error("Failed to fetch workflows", error);
         }
     };
 
+    const loadMore = async () => {
+        const cursor = olderItems.length > 0 ? nextCursor : headPage.nextCursor;
+        if (!cursor) {
+            return;
+        }
+        setLoadingMore(true);
+        try {
+            const page = await fetchPage(cursor);
+            setOlderItems(prev => [...prev, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } catch (error) {
+            console.error("Failed to fetch more workflows", error);
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
+    const headIds = new Set(headPage.items.map(wf => wf.id));
+    const workflows = [...headPage.items, ...olderItems.filter(wf => !headIds.has(wf.id))];
+    const hasMore = olderItems.length > 0 ? nextCursor !== null : headPage.nextCursor !== null;
+
     return (
         <div className="space-y-2 p-2">
             <h3 className="text-xs font-semibold text-gray-500 uppercase tracking-wider mb-3 px-2">
@@ -101,6 +139,16 @@ const WorkflowList: React.FC<WorkflowListProps> = ({ onSelectWorkflow, activeWor
                 );
             })}
 
+            {hasMore && (
+                <button
+                    onClick={loadMore}
+                    disabled={loadingMore}
+                    className="w-full text-xs text-indigo-600 hover:text-indigo-800 py-2 disabled:opacity-50"
+                >
+                    {loadingMore ? 'Loading...' : 'Load more'}
+                </button>
+            )}
+
             {workflows.length === 0 && (
                 <div className="text-xs text-gray-400 px-3 italic">
                     No bookings found